@@ -0,0 +1,42 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.dao;
+
+import java.util.Date;
+import java.util.List;
+
+import io.meeds.github.gamification.entity.CacheInvalidationEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CacheInvalidationDAO extends JpaRepository<CacheInvalidationEntity, Long> {
+
+  List<CacheInvalidationEntity> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  CacheInvalidationEntity findFirstByOrderByIdDesc();
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM GitHubCacheInvalidation i WHERE i.createdDate < :before")
+  int deleteByCreatedDateBefore(@Param("before") Date before);
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import io.meeds.github.gamification.entity.RepositoryStatusEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RepositoryStatusDAO extends JpaRepository<RepositoryStatusEntity, Long> {
+
+  @Query("SELECT r.repositoryId FROM GitHubRepositoryStatus r WHERE r.organizationId = :organizationId AND r.enabled = false")
+  List<Long> findDisabledRepositoryIds(@Param("organizationId") long organizationId);
+
+  @Query("""
+      SELECT r.repositoryId FROM GitHubRepositoryStatus r
+      WHERE r.organizationId = :organizationId AND r.repositoryId IN :repositoryIds
+      """)
+  List<Long> findExistingRepositoryIds(@Param("organizationId") long organizationId,
+                                       @Param("repositoryIds") Collection<Long> repositoryIds);
+
+  boolean existsByOrganizationId(long organizationId);
+
+  @Modifying
+  @Query("""
+      UPDATE GitHubRepositoryStatus r SET r.enabled = :enabled, r.updatedDate = :updatedDate
+      WHERE r.organizationId = :organizationId AND r.repositoryId IN :repositoryIds
+      """)
+  int updateStatus(@Param("organizationId") long organizationId,
+                   @Param("repositoryIds") Collection<Long> repositoryIds,
+                   @Param("enabled") boolean enabled,
+                   @Param("updatedDate") Date updatedDate);
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.dao;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import io.meeds.github.gamification.entity.WebhookDeliveryEntity;
+import io.meeds.github.gamification.model.WebhookDeliveryStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface WebhookDeliveryDAO extends JpaRepository<WebhookDeliveryEntity, Long> {
+
+  WebhookDeliveryEntity findByDeliveryId(String deliveryId);
+
+  @Query("""
+      SELECT d FROM GitHubWebhookDeliveries d
+      WHERE d.status IN :statuses AND d.leaseExpiryDate < :now
+      ORDER BY d.id ASC
+      """)
+  List<WebhookDeliveryEntity> findByLeaseExpired(@Param("statuses") Collection<WebhookDeliveryStatus> statuses,
+                                                 @Param("now") Date now,
+                                                 Pageable pageable);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d SET d.status = :newStatus, d.updatedDate = :updatedDate
+      WHERE d.id = :id AND d.status = :status AND d.nodeId = :nodeId
+      """)
+  int updateStatus(@Param("id") long id,
+                   @Param("nodeId") String nodeId,
+                   @Param("status") WebhookDeliveryStatus status,
+                   @Param("newStatus") WebhookDeliveryStatus newStatus,
+                   @Param("updatedDate") Date updatedDate);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d SET d.status = :newStatus, d.updatedDate = :updatedDate
+      WHERE d.id = :id AND d.status = :status
+      """)
+  int updateStatus(@Param("id") long id,
+                   @Param("status") WebhookDeliveryStatus status,
+                   @Param("newStatus") WebhookDeliveryStatus newStatus,
+                   @Param("updatedDate") Date updatedDate);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d
+      SET d.status = :newStatus, d.attempts = :attempts, d.nodeId = NULL, d.leaseExpiryDate = :retryDate,
+          d.updatedDate = :updatedDate
+      WHERE d.id = :id AND d.status = :status
+      """)
+  int updateAttempts(@Param("id") long id,
+                     @Param("status") WebhookDeliveryStatus status,
+                     @Param("newStatus") WebhookDeliveryStatus newStatus,
+                     @Param("attempts") int attempts,
+                     @Param("retryDate") Date retryDate,
+                     @Param("updatedDate") Date updatedDate);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d
+      SET d.status = :newStatus, d.attempts = 0, d.nodeId = :nodeId, d.leaseExpiryDate = :leaseExpiryDate,
+          d.updatedDate = :updatedDate
+      WHERE d.id = :id AND d.status = :status
+      """)
+  int requeue(@Param("id") long id,
+              @Param("status") WebhookDeliveryStatus status,
+              @Param("newStatus") WebhookDeliveryStatus newStatus,
+              @Param("nodeId") String nodeId,
+              @Param("leaseExpiryDate") Date leaseExpiryDate,
+              @Param("updatedDate") Date updatedDate);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d
+      SET d.status = :newStatus, d.nodeId = :nodeId, d.leaseExpiryDate = :leaseExpiryDate, d.updatedDate = :now
+      WHERE d.id = :id AND d.status IN :statuses AND d.leaseExpiryDate < :now
+      """)
+  int acquireLease(@Param("id") long id,
+                   @Param("statuses") Collection<WebhookDeliveryStatus> statuses,
+                   @Param("newStatus") WebhookDeliveryStatus newStatus,
+                   @Param("nodeId") String nodeId,
+                   @Param("leaseExpiryDate") Date leaseExpiryDate,
+                   @Param("now") Date now);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d SET d.leaseExpiryDate = :leaseExpiryDate
+      WHERE d.id IN :ids AND d.status = :status AND d.nodeId = :nodeId
+      """)
+  int renewLeases(@Param("ids") Collection<Long> ids,
+                  @Param("status") WebhookDeliveryStatus status,
+                  @Param("nodeId") String nodeId,
+                  @Param("leaseExpiryDate") Date leaseExpiryDate);
+
+  @Modifying
+  @Transactional
+  @Query("""
+      UPDATE GitHubWebhookDeliveries d
+      SET d.status = :newStatus, d.nodeId = NULL, d.leaseExpiryDate = :updatedDate, d.updatedDate = :updatedDate
+      WHERE d.status = :status AND d.updatedDate < :before
+      """)
+  int releaseBefore(@Param("status") WebhookDeliveryStatus status,
+                    @Param("newStatus") WebhookDeliveryStatus newStatus,
+                    @Param("before") Date before,
+                    @Param("updatedDate") Date updatedDate);
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM GitHubWebhookDeliveries d WHERE d.status IN :statuses AND d.updatedDate < :before")
+  int deleteByStatusBefore(@Param("statuses") Collection<WebhookDeliveryStatus> statuses, @Param("before") Date before);
+}
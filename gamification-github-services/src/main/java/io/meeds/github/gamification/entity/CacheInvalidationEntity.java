@@ -0,0 +1,52 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import jakarta.persistence.*;
+
+import lombok.Data;
+
+@Entity(name = "GitHubCacheInvalidation")
+@Table(name = "GITHUB_CACHE_INVALIDATIONS")
+@Data
+public class CacheInvalidationEntity implements Serializable {
+
+  private static final long serialVersionUID = -6915724073650483266L;
+
+  @Id
+  @SequenceGenerator(name = "SEQ_GITHUB_CACHE_INVALIDATIONS_ID", sequenceName = "SEQ_GITHUB_CACHE_INVALIDATIONS_ID", allocationSize = 1)
+  @GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_GITHUB_CACHE_INVALIDATIONS_ID")
+  @Column(name = "ID")
+  private Long              id;
+
+  @Column(name = "CACHE_NAME", nullable = false)
+  private String            cacheName;
+
+  @Column(name = "CACHE_KEY")
+  private String            cacheKey;
+
+  @Column(name = "NODE_ID", nullable = false)
+  private String            nodeId;
+
+  @Column(name = "CREATED_DATE", nullable = false)
+  private Date              createdDate;
+}
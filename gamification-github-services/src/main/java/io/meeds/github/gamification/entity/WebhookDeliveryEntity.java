@@ -0,0 +1,73 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.entity;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import io.meeds.github.gamification.model.WebhookDeliveryStatus;
+import jakarta.persistence.*;
+
+import lombok.Data;
+
+@Entity(name = "GitHubWebhookDeliveries")
+@Table(name = "GITHUB_WEBHOOK_DELIVERIES")
+@Data
+public class WebhookDeliveryEntity implements Serializable {
+
+  private static final long     serialVersionUID = -4283207569112604338L;
+
+  @Id
+  @SequenceGenerator(name = "SEQ_GITHUB_WEBHOOK_DELIVERIES_ID", sequenceName = "SEQ_GITHUB_WEBHOOK_DELIVERIES_ID", allocationSize = 1)
+  @GeneratedValue(strategy = GenerationType.AUTO, generator = "SEQ_GITHUB_WEBHOOK_DELIVERIES_ID")
+  @Column(name = "ID")
+  private Long                  id;
+
+  @Column(name = "DELIVERY_ID", nullable = false, unique = true)
+  private String                deliveryId;
+
+  @Column(name = "EVENT", nullable = false)
+  private String                event;
+
+  @Column(name = "SIGNATURE")
+  private String                signature;
+
+  @Lob
+  @Column(name = "PAYLOAD", nullable = false)
+  private byte[]                payload;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "STATUS", nullable = false)
+  private WebhookDeliveryStatus status;
+
+  @Column(name = "ATTEMPTS", nullable = false)
+  private int                   attempts;
+
+  @Column(name = "NODE_ID")
+  private String                nodeId;
+
+  @Column(name = "LEASE_EXPIRY_DATE", nullable = false)
+  private Date                  leaseExpiryDate;
+
+  @Column(name = "CREATED_DATE", nullable = false)
+  private Date                  createdDate;
+
+  @Column(name = "UPDATED_DATE", nullable = false)
+  private Date                  updatedDate;
+}
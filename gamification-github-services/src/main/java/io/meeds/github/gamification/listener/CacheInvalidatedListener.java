@@ -0,0 +1,105 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.listener;
+
+import static io.meeds.github.gamification.services.CacheInvalidationService.ACCOUNT_CACHE;
+import static io.meeds.github.gamification.services.CacheInvalidationService.CACHE_INVALIDATED_EVENT;
+import static io.meeds.github.gamification.services.CacheInvalidationService.REPOSITORY_STATUS_CACHE;
+import static io.meeds.github.gamification.services.CacheInvalidationService.RULE_CACHE;
+import static io.meeds.github.gamification.services.CacheInvalidationService.TRIGGER_CACHE;
+import static io.meeds.github.gamification.services.CacheInvalidationService.WEBHOOK_CACHE;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.lang3.StringUtils;
+import org.exoplatform.services.listener.Event;
+import org.exoplatform.services.listener.Listener;
+import org.exoplatform.services.listener.ListenerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.meeds.gamification.model.RuleDTO;
+import io.meeds.gamification.service.RuleService;
+import io.meeds.github.gamification.services.EventIndexService;
+import io.meeds.github.gamification.services.GithubAccountService;
+import io.meeds.github.gamification.services.RuleIndexService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
+import io.meeds.github.gamification.services.WebhookService;
+
+/**
+ * Clears the locally cached data when it has been modified by another node of
+ * the cluster
+ */
+@Component
+public class CacheInvalidatedListener extends Listener<String, String> {
+
+  @Autowired
+  private ListenerService          listenerService;
+
+  @Autowired
+  private WebhookService           webhookService;
+
+  @Autowired
+  private GithubAccountService     githubAccountService;
+
+  @Autowired
+  private RuleService              ruleService;
+
+  @Autowired
+  private EventIndexService        eventIndexService;
+
+  @Autowired
+  private RuleIndexService         ruleIndexService;
+
+  @Autowired
+  private TriggerEnablementService triggerEnablementService;
+
+  @PostConstruct
+  public void init() {
+    listenerService.addListener(CACHE_INVALIDATED_EVENT, this);
+  }
+
+  @Override
+  public void onEvent(Event<String, String> event) {
+    switch (event.getSource()) {
+    case WEBHOOK_CACHE -> webhookService.clearWebhookCaches(Long.parseLong(event.getData()));
+    case REPOSITORY_STATUS_CACHE -> webhookService.clearRepositoriesStatusCache(Long.parseLong(event.getData()));
+    case ACCOUNT_CACHE -> githubAccountService.clearAssociatedUsername(event.getData());
+    case RULE_CACHE -> reloadRule(event.getData());
+    case TRIGGER_CACHE -> clearTriggerEnablement(event.getData());
+    default -> throw new IllegalArgumentException("Unknown cache name " + event.getSource());
+    }
+  }
+
+  private void clearTriggerEnablement(String cacheKey) {
+    String organizationId = StringUtils.substringBefore(cacheKey, ":");
+    String trigger = StringUtils.substringAfter(cacheKey, ":");
+    triggerEnablementService.clearTriggerEnablement(trigger, Long.parseLong(organizationId));
+  }
+
+  private void reloadRule(String ruleId) {
+    RuleDTO rule = StringUtils.isNumeric(ruleId) ? ruleService.findRuleById(Long.parseLong(ruleId)) : null;
+    if (rule == null) {
+      eventIndexService.clearEventsIndex();
+      ruleIndexService.clearRulesIndex();
+    } else {
+      eventIndexService.updateEvent(rule.getEvent());
+      ruleIndexService.updateRule(rule);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.listener;
+
+import static io.meeds.gamification.utils.Utils.POST_CREATE_RULE_EVENT;
+import static io.meeds.gamification.utils.Utils.POST_DELETE_RULE_EVENT;
+import static io.meeds.gamification.utils.Utils.POST_UPDATE_RULE_EVENT;
+import static io.meeds.github.gamification.services.CacheInvalidationService.RULE_CACHE;
+
+import java.util.List;
+
+import jakarta.annotation.PostConstruct;
+import org.exoplatform.services.listener.Event;
+import org.exoplatform.services.listener.Listener;
+import org.exoplatform.services.listener.ListenerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.meeds.gamification.model.RuleDTO;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.services.EventIndexService;
+import io.meeds.github.gamification.services.RuleIndexService;
+
+/**
+ * Updates the indexed gamification event and rule each time a gamification
+ * rule is created, updated or deleted, then notifies the other nodes of the
+ * cluster to reload it. The gamification rule service broadcasts these events
+ * with the saved rule as source and the name of the user who modified it as
+ * data.
+ */
+@Component
+public class GamificationRuleUpdatedListener extends Listener<RuleDTO, String> {
+
+  private static final List<String> LISTENER_EVENTS = List.of(POST_CREATE_RULE_EVENT,
+                                                              POST_UPDATE_RULE_EVENT,
+                                                              POST_DELETE_RULE_EVENT);
+
+  @Autowired
+  private ListenerService           listenerService;
+
+  @Autowired
+  private CacheInvalidationService  cacheInvalidationService;
+
+  @Autowired
+  private EventIndexService         eventIndexService;
+
+  @Autowired
+  private RuleIndexService          ruleIndexService;
+
+  @PostConstruct
+  public void init() {
+    for (String eventName : LISTENER_EVENTS) {
+      listenerService.addListener(eventName, this);
+    }
+  }
+
+  @Override
+  public void onEvent(Event<RuleDTO, String> event) {
+    RuleDTO rule = event.getSource();
+    if (rule == null || rule.getId() == null) {
+      return;
+    }
+    eventIndexService.updateEvent(rule.getEvent());
+    if (POST_DELETE_RULE_EVENT.equals(event.getEventName())) {
+      ruleIndexService.removeRule(rule.getId());
+    } else {
+      ruleIndexService.updateRule(rule);
+    }
+    cacheInvalidationService.invalidate(RULE_CACHE, String.valueOf(rule.getId()));
+  }
+}
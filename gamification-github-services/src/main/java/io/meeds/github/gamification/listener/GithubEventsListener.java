@@ -31,6 +31,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import static io.meeds.github.gamification.utils.Utils.GITHUB_ACTION_EVENT;
 import static io.meeds.github.gamification.utils.Utils.GITHUB_CANCEL_ACTION_EVENT;
 
+/**
+ * Relays 'github.action.event' and 'github.cancel.action.event' events to
+ * gamification listeners. The connector broadcasts gamification actions
+ * directly unless 'io.meeds.gamification.github.events.directDispatch' is
+ * disabled, this listener is kept for compatibility with components
+ * broadcasting those events.
+ */
 @Component
 public class GithubEventsListener extends Listener<Map<String, String>, String> {
 
@@ -0,0 +1,157 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.model;
+
+import static io.meeds.github.gamification.utils.Utils.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import lombok.Getter;
+
+/**
+ * A github webhook delivery context, shared by all processing steps of a
+ * delivery, so that the payload is parsed only once. The action, organization,
+ * repository and sender are read using a streaming parser, without binding the
+ * whole payload, in order to triage deliveries cheaply.
+ */
+public class WebhookContext {
+
+  @Getter
+  private final String        trigger;
+
+  @Getter
+  private final String        signature;
+
+  @Getter
+  private final byte[]        payload;
+
+  private Map<String, Object> payloadMap;
+
+  private Long                organizationId;
+
+  private Long                repositoryId;
+
+  private String              action;
+
+  private String              senderLogin;
+
+  private boolean             extracted;
+
+  public WebhookContext(String trigger, String signature, byte[] payload) {
+    this.trigger = trigger;
+    this.signature = signature;
+    this.payload = payload;
+  }
+
+  public WebhookContext(String trigger, String signature, String payload) {
+    this(trigger, signature, payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the payload parsed on first access
+   */
+  public Map<String, Object> getPayloadMap() {
+    if (payloadMap == null) {
+      payloadMap = fromJsonBytesToMap(payload);
+    }
+    return payloadMap;
+  }
+
+  public Long getOrganizationId() {
+    extract();
+    return organizationId;
+  }
+
+  public Long getRepositoryId() {
+    extract();
+    return repositoryId;
+  }
+
+  public String getAction() {
+    extract();
+    return action;
+  }
+
+  public String getSenderLogin() {
+    extract();
+    return senderLogin;
+  }
+
+  private void extract() {
+    if (extracted) {
+      return;
+    }
+    extracted = true;
+    try (JsonParser parser = createJsonParser(payload)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return;
+      }
+      int remainingFields = 4;
+      while (remainingFields > 0 && parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.currentName();
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT && ORGANIZATION.equals(fieldName)) {
+          organizationId = toLong(readField(parser, ID));
+          remainingFields--;
+        } else if (token == JsonToken.START_OBJECT && REPOSITORY.equals(fieldName)) {
+          repositoryId = toLong(readField(parser, ID));
+          remainingFields--;
+        } else if (token == JsonToken.START_OBJECT && SENDER.equals(fieldName)) {
+          senderLogin = readField(parser, LOGIN);
+          remainingFields--;
+        } else if (token == JsonToken.VALUE_STRING && ACTION.equals(fieldName)) {
+          action = parser.getText();
+          remainingFields--;
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      // Not a valid JSON payload, the delivery will be ignored since
+      // its organization can't be determined
+      organizationId = null;
+    }
+  }
+
+  private String readField(JsonParser parser, String name) throws IOException {
+    String value = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.currentName();
+      JsonToken token = parser.nextToken();
+      if (token.isScalarValue() && name.equals(fieldName)) {
+        value = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return value;
+  }
+
+  private Long toLong(String value) {
+    try {
+      return value == null ? null : Long.valueOf(value);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -18,6 +18,8 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.payload.GithubComment;
+import io.meeds.github.gamification.model.payload.PullRequestReviewCommentPayload;
 import io.meeds.github.gamification.services.GithubTriggerService;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,13 +30,17 @@ import static io.meeds.github.gamification.utils.Utils.*;
 import java.util.*;
 
 @Component
-public class CommentPullRequestTriggerPlugin extends GithubTriggerPlugin {
+public class CommentPullRequestTriggerPlugin extends TypedGithubTriggerPlugin<PullRequestReviewCommentPayload> {
 
   private static final String  NAME = "pull_request_review_comment";
 
   @Autowired
   private GithubTriggerService githubTriggerService;
 
+  public CommentPullRequestTriggerPlugin() {
+    super(PullRequestReviewCommentPayload.class);
+  }
+
   @PostConstruct
   public void init() {
     githubTriggerService.addPlugin(this);
@@ -46,14 +52,15 @@ public class CommentPullRequestTriggerPlugin extends GithubTriggerPlugin {
   }
 
   @Override
-  public List<Event> getEvents(Map<String, Object> payload) {
+  public List<Event> getEvents(PullRequestReviewCommentPayload payload) {
+    GithubComment comment = payload.getComment();
     return Collections.singletonList(new Event(PULL_REQUEST_REVIEW_COMMENT_EVENT_NAME,
                                                null,
-                                               extractSubItem(payload, COMMENT, USER, LOGIN),
-                                               extractSubItem(payload, COMMENT, LINKS, HTML, HREF),
+                                               comment == null || comment.getUser() == null ? null : comment.getUser().getLogin(),
+                                               comment == null ? null : comment.getLinkHref(HTML),
                                                REVIEW_COMMENT_TYPE,
-                                               extractSubItem(payload, ORGANIZATION, ID),
-                                               extractSubItem(payload, REPOSITORY, ID)));
+                                               payload.getOrganizationId(),
+                                               payload.getRepositoryId()));
   }
 
 }
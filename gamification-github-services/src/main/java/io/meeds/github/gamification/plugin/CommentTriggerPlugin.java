@@ -18,25 +18,31 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.payload.IssueCommentPayload;
 import static io.meeds.github.gamification.utils.Utils.*;
 
 import io.meeds.github.gamification.services.GithubTriggerService;
 import jakarta.annotation.PostConstruct;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 @Component
-public class CommentTriggerPlugin extends GithubTriggerPlugin {
+public class CommentTriggerPlugin extends TypedGithubTriggerPlugin<IssueCommentPayload> {
 
-  private static final String  NAME = "issue_comment";
+  private static final String      NAME            = "issue_comment";
+
+  private static final Set<String> HANDLED_ACTIONS = Set.of(CREATED, DELETED);
 
   @Autowired
-  private GithubTriggerService githubTriggerService;
+  private GithubTriggerService     githubTriggerService;
+
+  public CommentTriggerPlugin() {
+    super(IssueCommentPayload.class);
+  }
 
   @PostConstruct
   public void init() {
@@ -49,33 +55,35 @@ public class CommentTriggerPlugin extends GithubTriggerPlugin {
   }
 
   @Override
-  public List<Event> getEvents(Map<String, Object> payload) {
+  public boolean isActionHandled(String action) {
+    return action != null && HANDLED_ACTIONS.contains(action);
+  }
 
-    String pullRequest = extractSubItem(payload, ISSUE, PULL_REQUEST);
-    String action = extractSubItem(payload, ACTION);
-    String comment = extractSubItem(payload, COMMENT, HTML_URL);
-    String userId = extractSubItem(payload, SENDER, LOGIN);
+  @Override
+  public List<Event> getEvents(IssueCommentPayload payload) {
+    String action = payload.getAction();
+    if (action == null) {
+      return Collections.emptyList();
+    }
+    boolean isPullRequest = payload.getIssue() != null && payload.getIssue().getPullRequest() != null;
+    String eventType = isPullRequest ? COMMENT_PR_TYPE : COMMENT_ISSUE_TYPE;
     String eventName;
-    String eventType = StringUtils.isBlank(pullRequest) ? COMMENT_ISSUE_TYPE : COMMENT_PR_TYPE;
-    if (action != null) {
-      switch (action) {
-      case CREATED:
-        eventName = StringUtils.isBlank(pullRequest) ? COMMENT_ISSUE_EVENT_NAME : COMMENT_PULL_REQUEST_EVENT_NAME;
-        break;
-      case DELETED:
-        eventName = StringUtils.isBlank(pullRequest) ? DELETE_ISSUE_COMMENT_EVENT_NAME : DELETE_PULL_REQUEST_COMMENT_EVENT_NAME;
-        break;
-      default:
-        return Collections.emptyList();
-      }
-      return Collections.singletonList(new Event(eventName,
-                                                 null,
-                                                 userId,
-                                                 comment,
-                                                 eventType,
-                                                 extractSubItem(payload, ORGANIZATION, ID),
-                                                 extractSubItem(payload, REPOSITORY, ID)));
+    switch (action) {
+    case CREATED:
+      eventName = isPullRequest ? COMMENT_PULL_REQUEST_EVENT_NAME : COMMENT_ISSUE_EVENT_NAME;
+      break;
+    case DELETED:
+      eventName = isPullRequest ? DELETE_PULL_REQUEST_COMMENT_EVENT_NAME : DELETE_ISSUE_COMMENT_EVENT_NAME;
+      break;
+    default:
+      return Collections.emptyList();
     }
-    return Collections.emptyList();
+    return Collections.singletonList(new Event(eventName,
+                                               null,
+                                               payload.getSenderLogin(),
+                                               payload.getComment() == null ? null : payload.getComment().getHtmlUrl(),
+                                               eventType,
+                                               payload.getOrganizationId(),
+                                               payload.getRepositoryId()));
   }
 }
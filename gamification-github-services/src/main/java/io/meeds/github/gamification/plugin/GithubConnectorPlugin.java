@@ -24,6 +24,8 @@ import com.github.scribejava.core.model.OAuth2AccessToken;
 import com.github.scribejava.core.oauth.OAuth20Service;
 import io.meeds.gamification.service.ConnectorService;
 import io.meeds.github.gamification.model.GithubAccessTokenContext;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.services.GithubAccountService;
 import io.meeds.gamification.model.RemoteConnectorSettings;
 import io.meeds.gamification.plugin.ConnectorPlugin;
 import io.meeds.gamification.service.ConnectorSettingService;
@@ -46,25 +48,31 @@ import java.util.concurrent.ExecutionException;
 @Component
 public class GithubConnectorPlugin extends ConnectorPlugin {
 
-  private static final Log        LOG                = ExoLogger.getLogger(GithubConnectorPlugin.class);
+  private static final Log         LOG                = ExoLogger.getLogger(GithubConnectorPlugin.class);
 
-  private static final String     CONNECTOR_NAME     = "github";
+  private static final String      CONNECTOR_NAME     = "github";
 
-  private static final String     CONNECTOR_SCOPE    = "read:user";
+  private static final String      CONNECTOR_SCOPE    = "read:user";
 
-  private static final String     CONNECTOR_REST_API = "https://api.github.com/user";
+  private static final String      CONNECTOR_REST_API = "https://api.github.com/user";
 
-  private static final String     NAME               = "github";
+  private static final String      NAME               = "github";
 
-  private OAuth20Service          oAuthService;
+  private OAuth20Service           oAuthService;
 
-  private long                    remoteConnectorId;
+  private long                     remoteConnectorId;
 
   @Autowired
-  private ConnectorSettingService connectorSettingService;
+  private ConnectorSettingService  connectorSettingService;
 
   @Autowired
-  private ConnectorService        connectorService;
+  private ConnectorService         connectorService;
+
+  @Autowired
+  private GithubAccountService     githubAccountService;
+
+  @Autowired
+  private CacheInvalidationService cacheInvalidationService;
 
   @PostConstruct
   public void initData() {
@@ -87,6 +95,9 @@ public class GithubConnectorPlugin extends ConnectorPlugin {
         if (StringUtils.isBlank(githubIdentifier)) {
           throw new OAuthException(OAuthExceptionCode.INVALID_STATE, "User Github identifier is empty");
         }
+        // The association is saved once the token is validated
+        githubAccountService.clearAssociatedUsername(githubIdentifier);
+        cacheInvalidationService.invalidate(CacheInvalidationService.ACCOUNT_CACHE, githubIdentifier);
         return githubIdentifier;
       } catch (InterruptedException | IOException e) { // NOSONAR
         throw new OAuthException(OAuthExceptionCode.IO_ERROR, e);
@@ -21,21 +21,37 @@ package io.meeds.github.gamification.plugin;
 import io.meeds.gamification.plugin.EventPlugin;
 import io.meeds.gamification.service.EventService;
 import jakarta.annotation.PostConstruct;
-import org.apache.commons.collections.CollectionUtils;
+import io.meeds.github.gamification.utils.LongHashSet;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.meeds.github.gamification.utils.Utils.*;
 
 @Component
 public class GithubEventPlugin extends EventPlugin {
 
-  public static final String EVENT_TYPE = "github";
+  public static final String                         EVENT_TYPE        = "github";
+
+  private static final int                           MAX_RULE_MATCHERS = 1000;
+
+  /**
+   * Compiled rule matchers indexed by rule organization id then by rule
+   * repository ids, as stored in rule event properties. Lookups are lock free
+   * while additions are made under the map lock.
+   */
+  private final Map<String, Map<String, RuleMatcher>> ruleMatchers      = new ConcurrentHashMap<>();
+
+  /**
+   * Count of compiled rule matchers, guarded by the {@link #ruleMatchers} lock
+   */
+  private int                                        ruleMatchersCount;
 
   @Autowired
-  private EventService       eventService;
+  private EventService                               eventService;
 
   @PostConstruct
   public void init() {
@@ -64,27 +80,69 @@ public class GithubEventPlugin extends EventPlugin {
 
   @Override
   public boolean isValidEvent(Map<String, String> eventProperties, String triggerDetails) {
-    String desiredOrganizationId = eventProperties.get(ORGANIZATION_ID);
-
-    List<String> desiredRepositoryIds =
-                                      eventProperties.get(REPOSITORY_IDS) != null ? Arrays.asList(eventProperties.get(REPOSITORY_IDS)
-                                                                                                                 .split(","))
-                                                                                  : Collections.emptyList();
-    Map<String, String> triggerDetailsMop = stringToMap(triggerDetails);
-    return desiredOrganizationId.equals(triggerDetailsMop.get(ORGANIZATION_ID))
-        && (CollectionUtils.isEmpty(desiredRepositoryIds) || desiredRepositoryIds.contains(triggerDetailsMop.get(REPOSITORY_ID)));
+    RuleMatcher ruleMatcher = getRuleMatcher(eventProperties.get(ORGANIZATION_ID), eventProperties.get(REPOSITORY_IDS));
+    return ruleMatcher.matches(getEventDetailId(triggerDetails, ORGANIZATION_ID),
+                               getEventDetailId(triggerDetails, REPOSITORY_ID));
+  }
+
+  /**
+   * Retrieves the matcher compiled for rule properties, rules sharing the same
+   * organization and repositories share the same matcher.
+   */
+  private RuleMatcher getRuleMatcher(String organizationId, String repositoryIds) {
+    String organizationKey = StringUtils.defaultString(organizationId);
+    String repositoriesKey = StringUtils.defaultString(repositoryIds);
+    Map<String, RuleMatcher> organizationMatchers = ruleMatchers.get(organizationKey);
+    RuleMatcher ruleMatcher = organizationMatchers == null ? null : organizationMatchers.get(repositoriesKey);
+    if (ruleMatcher == null) {
+      synchronized (ruleMatchers) {
+        organizationMatchers = ruleMatchers.get(organizationKey);
+        ruleMatcher = organizationMatchers == null ? null : organizationMatchers.get(repositoriesKey);
+        if (ruleMatcher == null) {
+          if (ruleMatchersCount >= MAX_RULE_MATCHERS) {
+            ruleMatchers.clear();
+            ruleMatchersCount = 0;
+          }
+          ruleMatcher = new RuleMatcher(organizationId, repositoryIds);
+          ruleMatchers.computeIfAbsent(organizationKey, key -> new ConcurrentHashMap<>()).put(repositoriesKey, ruleMatcher);
+          ruleMatchersCount++;
+        }
+      }
+    }
+    return ruleMatcher;
+  }
+
+  protected int getRuleMatchersCount() {
+    synchronized (ruleMatchers) {
+      return ruleMatchersCount;
+    }
   }
 
-  private static Map<String, String> stringToMap(String mapAsString) {
-    Map<String, String> map = new HashMap<>();
-    mapAsString = mapAsString.substring(1, mapAsString.length() - 1);
-    String[] pairs = mapAsString.split(", ");
-    for (String pair : pairs) {
-      String[] keyValue = pair.split(": ");
-      String key = keyValue[0].trim();
-      String value = keyValue[1].trim();
-      map.put(key, value);
+  private static class RuleMatcher {
+
+    private final long        organizationId;
+
+    private final LongHashSet repositoryIds;
+
+    public RuleMatcher(String organizationId, String repositoryIds) {
+      this.organizationId = StringUtils.isNumeric(organizationId) ? Long.parseLong(organizationId) : UNKNOWN_ID;
+      if (StringUtils.isBlank(repositoryIds)) {
+        this.repositoryIds = null;
+      } else {
+        this.repositoryIds = new LongHashSet();
+        for (String repositoryId : StringUtils.split(repositoryIds, ',')) {
+          String trimmedRepositoryId = repositoryId.trim();
+          if (StringUtils.isNumeric(trimmedRepositoryId)) {
+            this.repositoryIds.add(Long.parseLong(trimmedRepositoryId));
+          }
+        }
+      }
+    }
+
+    public boolean matches(long eventOrganizationId, long eventRepositoryId) {
+      return organizationId != UNKNOWN_ID
+          && organizationId == eventOrganizationId
+          && (repositoryIds == null || (eventRepositoryId != UNKNOWN_ID && repositoryIds.contains(eventRepositoryId)));
     }
-    return map;
   }
 }
@@ -18,6 +18,7 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.WebhookContext;
 import io.meeds.github.gamification.services.WebhookService;
 import org.exoplatform.container.component.BaseComponentPlugin;
 import org.springframework.stereotype.Component;
@@ -40,4 +41,25 @@ public abstract class GithubTriggerPlugin extends BaseComponentPlugin {
    */
   public abstract List<Event> getEvents(Map<String, Object> payload);
 
+  /**
+   * Gets List of triggered events from a webhook delivery context
+   *
+   * @param webhookContext {@link WebhookContext} of the received delivery
+   * @return List of triggered events
+   */
+  public List<Event> getEvents(WebhookContext webhookContext) {
+    return getEvents(webhookContext.getPayloadMap());
+  }
+
+  /**
+   * Checks whether a delivery with the given action can produce events, used
+   * to ignore deliveries before binding their whole payload.
+   *
+   * @param action payload action, null if the payload has no action
+   * @return true if a delivery with this action may produce events
+   */
+  public boolean isActionHandled(String action) {
+    return true;
+  }
+
 }
@@ -18,6 +18,7 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.payload.IssuesPayload;
 import io.meeds.github.gamification.services.GithubTriggerService;
 import io.meeds.github.gamification.utils.Utils;
 import jakarta.annotation.PostConstruct;
@@ -26,16 +27,22 @@ import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @Component
-public class IssueTriggerPlugin extends GithubTriggerPlugin {
+public class IssueTriggerPlugin extends TypedGithubTriggerPlugin<IssuesPayload> {
 
-  private static final String  NAME = "issues";
+  private static final String      NAME            = "issues";
+
+  private static final Set<String> HANDLED_ACTIONS = Set.of(Utils.OPENED, Utils.CLOSED, Utils.LABELED, Utils.UNLABELED);
 
   @Autowired
-  private GithubTriggerService githubTriggerService;
+  private GithubTriggerService     githubTriggerService;
+
+  public IssueTriggerPlugin() {
+    super(IssuesPayload.class);
+  }
 
   @PostConstruct
   public void init() {
@@ -48,48 +55,40 @@ public class IssueTriggerPlugin extends GithubTriggerPlugin {
   }
 
   @Override
-  public List<Event> getEvents(Map<String, Object> payload) {
-    String issueState = Utils.extractSubItem(payload, Utils.ACTION);
-    String objectId = Utils.extractSubItem(payload, Utils.ISSUE, Utils.HTML_URL);
-    String userId = Utils.extractSubItem(payload, Utils.SENDER, Utils.LOGIN);
+  public boolean isActionHandled(String action) {
+    return action != null && HANDLED_ACTIONS.contains(action);
+  }
+
+  @Override
+  public List<Event> getEvents(IssuesPayload payload) {
+    String issueState = payload.getAction();
+    String objectId = payload.getIssue() == null ? null : payload.getIssue().getHtmlUrl();
+    String eventName;
     if (Objects.equals(issueState, Utils.OPENED)) {
-      return Collections.singletonList(new Event(Utils.CREATE_ISSUE_EVENT_NAME,
-                                                 userId,
-                                                 userId,
-                                                 objectId,
-                                                 Utils.ISSUE_TYPE,
-                                                 Utils.extractSubItem(payload, "organization", "id"),
-                                                 Utils.extractSubItem(payload, "repository", "id")));
-    } else if (Objects.equals(issueState, Utils.CLOSED)) {
-      if (Objects.equals(Utils.extractSubItem(payload, Utils.ISSUE, Utils.STATE_REASON), Utils.NOT_PLANNED)) {
-        return Collections.singletonList(new Event(Utils.CLOSE_ISSUE_EVENT_NAME,
-                                                   userId,
-                                                   userId,
-                                                   objectId,
-                                                   Utils.ISSUE_TYPE,
-                                                   Utils.extractSubItem(payload, "organization", "id"),
-                                                   Utils.extractSubItem(payload, "repository", "id")));
-      }
-      return Collections.emptyList();
+      eventName = Utils.CREATE_ISSUE_EVENT_NAME;
+    } else if (Objects.equals(issueState, Utils.CLOSED) && payload.getIssue() != null
+        && Objects.equals(payload.getIssue().getStateReason(), Utils.NOT_PLANNED)) {
+      eventName = Utils.CLOSE_ISSUE_EVENT_NAME;
     } else if (Objects.equals(issueState, Utils.LABELED)) {
-      objectId = objectId + "?label=" + Utils.extractSubItem(payload, Utils.LABEL, Utils.NAME);
-      return Collections.singletonList(new Event(Utils.ADD_ISSUE_LABEL_EVENT_NAME,
-                                                 userId,
-                                                 userId,
-                                                 objectId,
-                                                 Utils.ISSUE_TYPE,
-                                                 Utils.extractSubItem(payload, Utils.ORGANIZATION, Utils.ID),
-                                                 Utils.extractSubItem(payload, Utils.REPOSITORY, Utils.ID)));
+      eventName = Utils.ADD_ISSUE_LABEL_EVENT_NAME;
+      objectId = objectId + "?label=" + getLabelName(payload);
     } else if (Objects.equals(issueState, Utils.UNLABELED)) {
-      objectId = objectId + "?label=" + Utils.extractSubItem(payload, Utils.LABEL, Utils.NAME);
-      return Collections.singletonList(new Event(Utils.DELETE_ISSUE_LABEL_EVENT_NAME,
-                                                 userId,
-                                                 userId,
-                                                 objectId,
-                                                 Utils.ISSUE_TYPE,
-                                                 Utils.extractSubItem(payload, Utils.ORGANIZATION, Utils.ID),
-                                                 Utils.extractSubItem(payload, Utils.REPOSITORY, Utils.ID)));
+      eventName = Utils.DELETE_ISSUE_LABEL_EVENT_NAME;
+      objectId = objectId + "?label=" + getLabelName(payload);
+    } else {
+      return Collections.emptyList();
     }
-    return Collections.emptyList();
+    String userId = payload.getSenderLogin();
+    return Collections.singletonList(new Event(eventName,
+                                               userId,
+                                               userId,
+                                               objectId,
+                                               Utils.ISSUE_TYPE,
+                                               payload.getOrganizationId(),
+                                               payload.getRepositoryId()));
+  }
+
+  private String getLabelName(IssuesPayload payload) {
+    return payload.getLabel() == null ? null : payload.getLabel().getName();
   }
 }
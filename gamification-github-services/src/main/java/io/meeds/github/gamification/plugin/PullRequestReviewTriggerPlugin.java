@@ -18,6 +18,9 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.payload.GithubPullRequest;
+import io.meeds.github.gamification.model.payload.GithubReview;
+import io.meeds.github.gamification.model.payload.PullRequestReviewPayload;
 import io.meeds.github.gamification.services.GithubTriggerService;
 import io.meeds.github.gamification.utils.Utils;
 import jakarta.annotation.PostConstruct;
@@ -27,16 +30,20 @@ import org.springframework.stereotype.Component;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 
 @Component
-public class PullRequestReviewTriggerPlugin extends GithubTriggerPlugin {
+public class PullRequestReviewTriggerPlugin extends TypedGithubTriggerPlugin<PullRequestReviewPayload> {
 
   private static final String  NAME = "pull_request_review";
 
   @Autowired
   private GithubTriggerService githubTriggerService;
 
+  public PullRequestReviewTriggerPlugin() {
+    super(PullRequestReviewPayload.class);
+  }
+
   @PostConstruct
   public void init() {
     githubTriggerService.addPlugin(this);
@@ -48,31 +55,37 @@ public class PullRequestReviewTriggerPlugin extends GithubTriggerPlugin {
   }
 
   @Override
-  public List<Event> getEvents(Map<String, Object> payload) {
-    String pullState = Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.STATE);
-    if (pullState != null && pullState.equals(Utils.PULL_REQUEST_COMMENTED)) {
+  public List<Event> getEvents(PullRequestReviewPayload payload) {
+    GithubReview review = payload.getReview();
+    if (review == null) {
+      return Collections.emptyList();
+    }
+    String reviewer = review.getUser() == null ? null : review.getUser().getLogin();
+    if (Objects.equals(review.getState(), Utils.PULL_REQUEST_COMMENTED)) {
       return Collections.singletonList(new Event(Utils.REVIEW_PULL_REQUEST_EVENT_NAME,
-                                                 Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.USER, Utils.LOGIN),
-                                                 Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.USER, Utils.LOGIN),
-                                                 Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.HTML_URL),
+                                                 reviewer,
+                                                 reviewer,
+                                                 review.getHtmlUrl(),
                                                  Utils.PR_TYPE,
-                                                 Utils.extractSubItem(payload, Utils.ORGANIZATION, Utils.ID),
-                                                 Utils.extractSubItem(payload, Utils.REPOSITORY, Utils.ID)));
-    } else if (pullState != null && pullState.equals(Utils.PULL_REQUEST_VALIDATED)) {
+                                                 payload.getOrganizationId(),
+                                                 payload.getRepositoryId()));
+    } else if (Objects.equals(review.getState(), Utils.PULL_REQUEST_VALIDATED)) {
+      GithubPullRequest pullRequest = payload.getPullRequest();
+      String author = pullRequest == null || pullRequest.getUser() == null ? null : pullRequest.getUser().getLogin();
       return Arrays.asList(new Event(Utils.PULL_REQUEST_VALIDATED_EVENT_NAME,
-                                     Utils.extractSubItem(payload, Utils.PULL_REQUEST, Utils.USER, Utils.LOGIN),
-                                     Utils.extractSubItem(payload, Utils.PULL_REQUEST, Utils.USER, Utils.LOGIN),
-                                     Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.HTML_URL),
+                                     author,
+                                     author,
+                                     review.getHtmlUrl(),
                                      Utils.PR_TYPE,
-                                     Utils.extractSubItem(payload, Utils.ORGANIZATION, Utils.ID),
-                                     Utils.extractSubItem(payload, Utils.REPOSITORY, Utils.ID)),
+                                     payload.getOrganizationId(),
+                                     payload.getRepositoryId()),
                            new Event(Utils.VALIDATE_PULL_REQUEST_EVENT_NAME,
-                                     Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.USER, Utils.LOGIN),
-                                     Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.USER, Utils.LOGIN),
-                                     Utils.extractSubItem(payload, Utils.PULL_REQUEST_REVIEW, Utils.HTML_URL),
+                                     reviewer,
+                                     reviewer,
+                                     review.getHtmlUrl(),
                                      Utils.PR_TYPE,
-                                     Utils.extractSubItem(payload, Utils.ORGANIZATION, Utils.ID),
-                                     Utils.extractSubItem(payload, Utils.REPOSITORY, Utils.ID)));
+                                     payload.getOrganizationId(),
+                                     payload.getRepositoryId()));
     }
     return Collections.emptyList();
   }
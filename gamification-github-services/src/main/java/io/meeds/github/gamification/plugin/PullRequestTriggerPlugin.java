@@ -18,6 +18,7 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.payload.PullRequestPayload;
 import io.meeds.github.gamification.services.GithubTriggerService;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,12 +29,18 @@ import static io.meeds.github.gamification.utils.Utils.*;
 import java.util.*;
 
 @Component
-public class PullRequestTriggerPlugin extends GithubTriggerPlugin {
+public class PullRequestTriggerPlugin extends TypedGithubTriggerPlugin<PullRequestPayload> {
 
-  private static final String  NAME = "pull_request";
+  private static final String      NAME            = "pull_request";
+
+  private static final Set<String> HANDLED_ACTIONS = Set.of(OPENED, CLOSED, REVIEW_REQUESTED, REVIEW_REQUEST_REMOVED);
 
   @Autowired
-  private GithubTriggerService githubTriggerService;
+  private GithubTriggerService     githubTriggerService;
+
+  public PullRequestTriggerPlugin() {
+    super(PullRequestPayload.class);
+  }
 
   @PostConstruct
   public void init() {
@@ -46,47 +53,39 @@ public class PullRequestTriggerPlugin extends GithubTriggerPlugin {
   }
 
   @Override
-  public List<Event> getEvents(Map<String, Object> payload) {
-    String userId = extractSubItem(payload, SENDER, LOGIN);
-    String objectId = extractSubItem(payload, PULL_REQUEST, HTML_URL);
-    if (Objects.equals(extractSubItem(payload, ACTION), OPENED)) {
-      return Collections.singletonList(new Event(CREATE_PULL_REQUEST_EVENT_NAME,
-                                                 null,
-                                                 userId,
-                                                 objectId,
-                                                 PR_TYPE,
-                                                 extractSubItem(payload, ORGANIZATION, ID),
-                                                 extractSubItem(payload, REPOSITORY, ID)));
-    } else if (Objects.equals(extractSubItem(payload, ACTION), CLOSED)
-        && !Boolean.parseBoolean(extractSubItem(payload, PULL_REQUEST, MERGED))) {
-      return Collections.singletonList(new Event(CLOSE_PULL_REQUEST_EVENT_NAME,
-                                                 null,
-                                                 userId,
-                                                 objectId,
-                                                 PR_TYPE,
-                                                 extractSubItem(payload, ORGANIZATION, ID),
-                                                 extractSubItem(payload, REPOSITORY, ID)));
-    } else if (Objects.equals(extractSubItem(payload, ACTION), REVIEW_REQUESTED)) {
-      String requestedReviewer = extractSubItem(payload, REQUESTED_REVIEWER, LOGIN);
-      objectId = objectId + "?requestedReviewer=" + requestedReviewer;
-      return Collections.singletonList(new Event(REQUEST_REVIEW_FOR_PULL_REQUEST_EVENT_NAME,
-                                                 null,
-                                                 userId,
-                                                 objectId,
-                                                 PR_TYPE,
-                                                 extractSubItem(payload, ORGANIZATION, ID),
-                                                 extractSubItem(payload, REPOSITORY, ID)));
-    } else if (Objects.equals(extractSubItem(payload, ACTION), REVIEW_REQUEST_REMOVED)) {
-      String requestedReviewer = extractSubItem(payload, REQUESTED_REVIEWER, LOGIN);
-      objectId = objectId + "?requestedReviewer=" + requestedReviewer;
-      return Collections.singletonList(new Event(REVIEW_REQUEST_REMOVED_EVENT_NAME,
-                                                 null,
-                                                 userId,
-                                                 objectId,
-                                                 PR_TYPE,
-                                                 extractSubItem(payload, ORGANIZATION, ID),
-                                                 extractSubItem(payload, REPOSITORY, ID)));
+  public boolean isActionHandled(String action) {
+    return action != null && HANDLED_ACTIONS.contains(action);
+  }
+
+  @Override
+  public List<Event> getEvents(PullRequestPayload payload) {
+    String userId = payload.getSenderLogin();
+    String objectId = payload.getPullRequest() == null ? null : payload.getPullRequest().getHtmlUrl();
+    String eventName;
+    if (Objects.equals(payload.getAction(), OPENED)) {
+      eventName = CREATE_PULL_REQUEST_EVENT_NAME;
+    } else if (Objects.equals(payload.getAction(), CLOSED) && payload.getPullRequest() != null
+        && !payload.getPullRequest().isMerged()) {
+      eventName = CLOSE_PULL_REQUEST_EVENT_NAME;
+    } else if (Objects.equals(payload.getAction(), REVIEW_REQUESTED)) {
+      eventName = REQUEST_REVIEW_FOR_PULL_REQUEST_EVENT_NAME;
+      objectId = objectId + "?requestedReviewer=" + getRequestedReviewer(payload);
+    } else if (Objects.equals(payload.getAction(), REVIEW_REQUEST_REMOVED)) {
+      eventName = REVIEW_REQUEST_REMOVED_EVENT_NAME;
+      objectId = objectId + "?requestedReviewer=" + getRequestedReviewer(payload);
+    } else {
+      return Collections.emptyList();
     }
-    return Collections.emptyList();
+    return Collections.singletonList(new Event(eventName,
+                                               null,
+                                               userId,
+                                               objectId,
+                                               PR_TYPE,
+                                               payload.getOrganizationId(),
+                                               payload.getRepositoryId()));
+  }
+
+  private String getRequestedReviewer(PullRequestPayload payload) {
+    return payload.getRequestedReviewer() == null ? null : payload.getRequestedReviewer().getLogin();
   }
 }
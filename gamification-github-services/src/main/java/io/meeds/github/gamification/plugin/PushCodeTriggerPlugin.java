@@ -18,8 +18,8 @@
 package io.meeds.github.gamification.plugin;
 
 import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.payload.PushPayload;
 import io.meeds.github.gamification.services.GithubTriggerService;
-import io.meeds.github.gamification.utils.Utils;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -29,13 +29,17 @@ import java.util.*;
 import static io.meeds.github.gamification.utils.Utils.*;
 
 @Component
-public class PushCodeTriggerPlugin extends GithubTriggerPlugin {
+public class PushCodeTriggerPlugin extends TypedGithubTriggerPlugin<PushPayload> {
 
   private static final String  NAME = "push";
 
   @Autowired
   private GithubTriggerService githubTriggerService;
 
+  public PushCodeTriggerPlugin() {
+    super(PushPayload.class);
+  }
+
   @PostConstruct
   public void init() {
     githubTriggerService.addPlugin(this);
@@ -47,13 +51,13 @@ public class PushCodeTriggerPlugin extends GithubTriggerPlugin {
   }
 
   @Override
-  public List<Event> getEvents(Map<String, Object> payload) {
+  public List<Event> getEvents(PushPayload payload) {
     return Collections.singletonList(new Event(PUSH_CODE_EVENT_NAME,
                                                null,
-                                               extractSubItem(payload, PUSHER, Utils.NAME),
-                                               extractSubItem(payload, HEAD_COMMIT, URL),
+                                               payload.getPusher() == null ? null : payload.getPusher().getName(),
+                                               payload.getHeadCommit() == null ? null : payload.getHeadCommit().getUrl(),
                                                null,
-                                               extractSubItem(payload, ORGANIZATION, ID),
-                                               extractSubItem(payload, REPOSITORY, ID)));
+                                               payload.getOrganizationId(),
+                                               payload.getRepositoryId()));
   }
 }
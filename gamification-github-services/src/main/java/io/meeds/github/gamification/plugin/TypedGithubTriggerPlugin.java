@@ -0,0 +1,72 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.plugin;
+
+import static io.meeds.github.gamification.utils.Utils.OBJECT_MAPPER;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.WebhookContext;
+import io.meeds.github.gamification.model.payload.GithubPayload;
+
+/**
+ * A {@link GithubTriggerPlugin} which binds the webhook payload to a typed
+ * object holding only the fields used by the plugin.
+ *
+ * @param <T> typed payload class
+ */
+public abstract class TypedGithubTriggerPlugin<T extends GithubPayload> extends GithubTriggerPlugin {
+
+  private final Class<T>     payloadType;
+
+  private final ObjectReader payloadReader;
+
+  protected TypedGithubTriggerPlugin(Class<T> payloadType) {
+    this.payloadType = payloadType;
+    this.payloadReader = OBJECT_MAPPER.readerFor(payloadType);
+  }
+
+  /**
+   * Gets List of triggered events
+   *
+   * @param payload typed payload of the webhook request
+   * @return List of triggered events
+   */
+  public abstract List<Event> getEvents(T payload);
+
+  @Override
+  public List<Event> getEvents(WebhookContext webhookContext) {
+    try {
+      T payload = payloadReader.readValue(webhookContext.getPayload());
+      return getEvents(payload);
+    } catch (IOException e) {
+      throw new IllegalStateException("Error converting webhook payload to " + payloadType.getSimpleName(), e);
+    }
+  }
+
+  @Override
+  public List<Event> getEvents(Map<String, Object> payload) {
+    T typedPayload = OBJECT_MAPPER.convertValue(payload, payloadType);
+    return getEvents(typedPayload);
+  }
+}
@@ -17,12 +17,16 @@
  */
 package io.meeds.github.gamification.rest;
 
-import javax.ws.rs.*;
-import javax.ws.rs.core.Response;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.meeds.github.gamification.services.GithubTriggerService;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -33,17 +37,30 @@ public class GithubWebHookRest {
   @Autowired
   private GithubTriggerService githubTriggerService;
 
-  @PostMapping
-  public Response githubEvent(// NOSONAR
-                              @RequestHeader("x-github-event") String event,
-                              @RequestHeader("x-hub-signature") String signature,
-                              @RequestBody String payload) {
+  @Value("${io.meeds.gamification.github.webhook.retryAfter:30}")
+  private int                  retryAfter;
 
+  @PostMapping
+  public ResponseEntity<String> githubEvent(// NOSONAR
+                                            @RequestHeader("x-github-event") String event,
+                                            @RequestHeader(name = "x-hub-signature-256", required = false) String signature256,
+                                            @RequestHeader(name = "x-hub-signature", required = false) String signature,
+                                            @RequestHeader(name = "x-github-delivery", required = false) String deliveryId,
+                                            @RequestBody byte[] payload) {
+    if (StringUtils.isBlank(deliveryId)) {
+      return ResponseEntity.badRequest().build();
+    }
     try {
-      githubTriggerService.handleTriggerAsync(event, signature, payload);
-      return Response.ok().build();
+      githubTriggerService.handleTriggerAsync(event, StringUtils.firstNonBlank(signature256, signature), deliveryId, payload);
+      return ResponseEntity.ok().build();
+    } catch (IllegalAccessException e) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                           .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                           .build();
     } catch (Exception e) {
-      return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(e.getMessage()).build();
+      return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
     }
   }
 }
@@ -18,10 +18,14 @@
  */
 package io.meeds.github.gamification.rest;
 
+import io.meeds.github.gamification.model.CacheStatistics;
+import io.meeds.github.gamification.model.IngestionStatistics;
 import io.meeds.github.gamification.model.RemoteRepository;
 import io.meeds.github.gamification.model.WebHook;
 import io.meeds.github.gamification.rest.builder.WebHookBuilder;
 import io.meeds.github.gamification.services.GithubConsumerService;
+import io.meeds.github.gamification.services.GithubTriggerService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
 import io.meeds.github.gamification.services.WebhookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -61,6 +65,12 @@ public class HooksManagementRest {
   @Autowired
   private GithubConsumerService githubConsumerService;
 
+  @Autowired
+  private GithubTriggerService  githubTriggerService;
+
+  @Autowired
+  private TriggerEnablementService triggerEnablementService;
+
   @GetMapping
   @Secured("users")
   @Operation(summary = "Retrieves the list GitHub webHooks", method = "GET")
@@ -256,6 +266,83 @@ public class HooksManagementRest {
     }
   }
 
+  @PostMapping(path = "repos/status")
+  @Secured("users")
+  @Operation(summary = "enables/disables a list of webhook repositories.", description = "enables/disables a list of webhook repositories", method = "POST")
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "204", description = "Request fulfilled"),
+          @ApiResponse(responseCode = "400", description = "Bad request"),
+          @ApiResponse(responseCode = "401", description = "Unauthorized operation"),
+          @ApiResponse(responseCode = "500", description = "Internal server error"), })
+  public void updateWebHookReposStatus(HttpServletRequest request,
+                                       @Parameter(description = "GitHub organization remote Id", required = true)
+                                       @RequestParam("organizationId")
+                                       long organizationId,
+                                       @Parameter(description = "Organization repositories remote Ids", required = true)
+                                       @RequestParam("repositoryIds")
+                                       List<Long> repositoryIds,
+                                       @Parameter(description = "Organization repositories status enabled/disabled. possible values: true for enabled, else false", required = true)
+                                       @RequestParam("enabled")
+                                       boolean enabled) {
+
+    try {
+      webhookService.setWebHookRepositoriesEnabled(organizationId, repositoryIds, enabled, request.getRemoteUser());
+    } catch (IllegalAccessException e) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+    }
+  }
+
+  @PostMapping(path = "trigger/status")
+  @Secured("users")
+  @Operation(summary = "Notifies that a trigger was enabled or disabled for an organization.", description = "Notifies that a trigger was enabled or disabled for an organization, so that it's taken into account by webhook deliveries processing", method = "POST")
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "204", description = "Request fulfilled"),
+          @ApiResponse(responseCode = "400", description = "Bad request"),
+          @ApiResponse(responseCode = "401", description = "Unauthorized operation"),
+          @ApiResponse(responseCode = "500", description = "Internal server error"), })
+  public void refreshTriggerStatus(HttpServletRequest request,
+                                   @Parameter(description = "GitHub organization remote Id", required = true)
+                                   @RequestParam("organizationId")
+                                   long organizationId,
+                                   @Parameter(description = "Gamification trigger name", required = true)
+                                   @RequestParam("trigger")
+                                   String trigger) {
+
+    try {
+      triggerEnablementService.refreshTriggerEnablement(trigger, organizationId, request.getRemoteUser());
+    } catch (IllegalAccessException e) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+    }
+  }
+
+  @GetMapping(path = "statistics")
+  @Secured("users")
+  @Operation(summary = "Retrieves the GitHub webhook ingestion statistics", method = "GET")
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = "Request fulfilled"),
+          @ApiResponse(responseCode = "401", description = "Unauthorized operation"), })
+  public IngestionStatistics getIngestionStatistics(HttpServletRequest request) {
+    try {
+      return githubTriggerService.getIngestionStatistics(request.getRemoteUser());
+    } catch (IllegalAccessException e) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+    }
+  }
+
+  @GetMapping(path = "caches/statistics")
+  @Secured("users")
+  @Operation(summary = "Retrieves the GitHub API responses caches statistics", method = "GET")
+  @ApiResponses(value = {
+          @ApiResponse(responseCode = "200", description = "Request fulfilled"),
+          @ApiResponse(responseCode = "401", description = "Unauthorized operation"), })
+  public List<CacheStatistics> getCacheStatistics(HttpServletRequest request) {
+    try {
+      return githubConsumerService.getCacheStatistics(request.getRemoteUser());
+    } catch (IllegalAccessException e) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage());
+    }
+  }
+
   private Page<WebHookRestEntity> getWebHookRestEntities(String username, Pageable pageable) throws IllegalAccessException {
     Page<WebHook> webHooks = webhookService.getWebhooks(username, pageable);
     return WebHookBuilder.toRestEntities(webhookService, githubConsumerService, webHooks);
@@ -0,0 +1,433 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.scheduling.executor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+
+import io.meeds.github.gamification.model.OrganizationIngestionStatistics;
+import io.meeds.github.gamification.utils.LongHashSet;
+
+/**
+ * An executor which queues tasks per organization and serves organizations in
+ * deficit round-robin order, so that an organization sending a burst of
+ * deliveries only delays its own deliveries. Each organization gets as many
+ * tasks per round as its weight and runs at most a configured number of tasks
+ * concurrently. Tasks sharing the same partition key are executed
+ * sequentially, in submission order. Tasks are executed either by a fixed pool
+ * of platform threads or each on its own virtual thread, with a semaphore
+ * capping the number of in-flight tasks.
+ */
+public class PartitionedExecutor {
+
+  private static final Log               LOG                 = ExoLogger.getLogger(PartitionedExecutor.class);
+
+  /**
+   * Maximum number of queued tasks of an organization inspected to find a task
+   * which partition isn't already being processed
+   */
+  private static final int               MAX_QUEUE_SCAN      = 64;
+
+  private final ReentrantLock            lock                = new ReentrantLock();
+
+  private final Condition                taskAvailable       = lock.newCondition();
+
+  private final Map<Long, Organization>  organizations       = new HashMap<>();
+
+  /**
+   * Organizations having queued tasks, in round-robin order
+   */
+  private final ArrayDeque<Organization> activeOrganizations = new ArrayDeque<>();
+
+  private final Thread[]                 workers;
+
+  private final int                      concurrency;
+
+  private final Semaphore                permits;
+
+  private final ThreadFactory            virtualThreadFactory;
+
+  private final Set<Thread>              runningThreads      = ConcurrentHashMap.newKeySet();
+
+  private final int                      queueCapacity;
+
+  private final int                      organizationQueueCapacity;
+
+  private final int                      organizationConcurrency;
+
+  private final Map<Long, Integer>       organizationWeights;
+
+  private int                            queueSize;
+
+  private int                            activeCount;
+
+  private long                           completedTaskCount;
+
+  private volatile boolean               shutdown;
+
+  /**
+   * @param concurrency maximum number of tasks processed concurrently: number
+   *          of worker threads, or of in-flight virtual threads
+   * @param virtualThreads whether each task is executed on a virtual thread
+   *          rather than on a fixed pool of platform worker threads
+   * @param queueCapacity maximum number of queued tasks
+   * @param organizationQueueCapacity maximum number of queued tasks per
+   *          organization
+   * @param organizationConcurrency maximum number of tasks of an organization
+   *          processed concurrently
+   * @param organizationWeights number of tasks served per round for
+   *          organizations which weight differs from 1
+   * @param namingPattern worker thread naming pattern
+   */
+  public PartitionedExecutor(int concurrency,
+                             boolean virtualThreads,
+                             int queueCapacity,
+                             int organizationQueueCapacity,
+                             int organizationConcurrency,
+                             Map<Long, Integer> organizationWeights,
+                             String namingPattern) {
+    this.concurrency = Math.max(1, concurrency);
+    this.queueCapacity = Math.max(1, queueCapacity);
+    this.organizationQueueCapacity = Math.max(1, Math.min(this.queueCapacity, organizationQueueCapacity));
+    this.organizationConcurrency = Math.max(1, organizationConcurrency);
+    this.organizationWeights = organizationWeights == null ? Collections.emptyMap() : organizationWeights;
+    ThreadFactory threadFactory = new BasicThreadFactory.Builder().namingPattern(namingPattern).daemon(true).build();
+    if (virtualThreads) {
+      this.permits = new Semaphore(this.concurrency);
+      this.virtualThreadFactory = Thread.ofVirtual().name(namingPattern.replace("%d", "virtual-"), 0).factory();
+      this.workers = new Thread[] { threadFactory.newThread(this::dispatch) };
+    } else {
+      this.permits = null;
+      this.virtualThreadFactory = null;
+      this.workers = new Thread[this.concurrency];
+      for (int i = 0; i < workers.length; i++) {
+        workers[i] = threadFactory.newThread(this::work);
+      }
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+  }
+
+  /**
+   * Queues a task of an organization
+   *
+   * @param organizationId organization identifier
+   * @param partitionKey key of the partition of which tasks are executed
+   *          sequentially
+   * @param task task to execute
+   * @throws RejectedExecutionException when the executor or the organization
+   *           queue is full
+   */
+  public void execute(long organizationId, long partitionKey, Runnable task) {
+    lock.lock();
+    try {
+      if (shutdown) {
+        throw new RejectedExecutionException("Executor is shut down");
+      }
+      Organization organization = organizations.computeIfAbsent(organizationId, Organization::new);
+      if (queueSize >= queueCapacity || organization.queue.size() >= organizationQueueCapacity) {
+        throw new RejectedExecutionException("Ingestion queue of organization " + organizationId + " is full");
+      }
+      organization.queue.addLast(new PartitionedTask(partitionKey, task));
+      queueSize++;
+      if (!organization.active) {
+        organization.active = true;
+        activeOrganizations.addLast(organization);
+      }
+      taskAvailable.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param organizationId organization identifier
+   * @return number of tasks that can be queued for the organization
+   */
+  public int remainingCapacity(long organizationId) {
+    lock.lock();
+    try {
+      Organization organization = organizations.get(organizationId);
+      int organizationQueueSize = organization == null ? 0 : organization.queue.size();
+      return Math.max(0, Math.min(queueCapacity - queueSize, organizationQueueCapacity - organizationQueueSize));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getWorkersCount() {
+    return concurrency;
+  }
+
+  public boolean isVirtualThreads() {
+    return virtualThreadFactory != null;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public int getQueueSize() {
+    lock.lock();
+    try {
+      return queueSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getActiveCount() {
+    lock.lock();
+    try {
+      return activeCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getCompletedTaskCount() {
+    lock.lock();
+    try {
+      return completedTaskCount;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public List<OrganizationIngestionStatistics> getOrganizationsStatistics() {
+    lock.lock();
+    try {
+      List<OrganizationIngestionStatistics> statistics = new ArrayList<>(organizations.size());
+      for (Organization organization : organizations.values()) {
+        statistics.add(new OrganizationIngestionStatistics(organization.id,
+                                                           organization.weight,
+                                                           organization.queue.size(),
+                                                           organization.running,
+                                                           organization.completedTaskCount));
+      }
+      return statistics;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void shutdownNow() {
+    shutdown = true;
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    for (Thread runningThread : runningThreads) {
+      runningThread.interrupt();
+    }
+  }
+
+  private void work() {
+    while (!shutdown) {
+      ScheduledTask scheduledTask;
+      try {
+        scheduledTask = take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      run(scheduledTask);
+    }
+  }
+
+  /**
+   * Starts each task on its own virtual thread, once a permit is available, so
+   * that tasks blocked on I/O don't hold a platform thread
+   */
+  private void dispatch() {
+    while (!shutdown) {
+      ScheduledTask scheduledTask;
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        scheduledTask = take();
+      } catch (InterruptedException e) {
+        permits.release();
+        Thread.currentThread().interrupt();
+        return;
+      }
+      Thread virtualThread = virtualThreadFactory.newThread(() -> {
+        try {
+          run(scheduledTask);
+        } finally {
+          runningThreads.remove(Thread.currentThread());
+          permits.release();
+        }
+      });
+      runningThreads.add(virtualThread);
+      virtualThread.start();
+    }
+  }
+
+  private ScheduledTask take() throws InterruptedException {
+    lock.lock();
+    try {
+      Organization organization;
+      while ((organization = nextOrganization()) == null) {
+        taskAvailable.await();
+      }
+      PartitionedTask task = organization.nextTask;
+      organization.nextTask = null;
+      organization.running++;
+      organization.runningPartitions.add(task.partitionKey());
+      queueSize--;
+      activeCount++;
+      return new ScheduledTask(organization, task);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void run(ScheduledTask scheduledTask) {
+    Organization organization = scheduledTask.organization();
+    PartitionedTask task = scheduledTask.task();
+    try {
+      task.task().run();
+    } catch (Throwable e) { // NOSONAR the worker thread has to survive any task failure
+      LOG.error("Error while executing task of organization {}", organization.id, e);
+    } finally {
+      lock.lock();
+      try {
+        organization.running--;
+        organization.runningPartitions.remove(task.partitionKey());
+        organization.completedTaskCount++;
+        activeCount--;
+        completedTaskCount++;
+        // Tasks of the released partition may be processed now
+        taskAvailable.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Selects the next organization to serve in deficit round-robin order: an
+   * organization stays in head until it consumed its weight or its runnable
+   * tasks, then it's moved to the tail.
+   *
+   * @return organization which next task was polled from its queue, null if
+   *         no task can be processed
+   */
+  private Organization nextOrganization() {
+    int organizationsCount = activeOrganizations.size();
+    for (int i = 0; i < organizationsCount; i++) {
+      Organization organization = activeOrganizations.peekFirst();
+      PartitionedTask task = organization.running < organizationConcurrency ? organization.pollRunnableTask() : null;
+      if (task == null) {
+        rotate(organization);
+        continue;
+      }
+      if (organization.deficit <= 0) {
+        organization.deficit += organization.weight;
+      }
+      organization.deficit--;
+      organization.nextTask = task;
+      if (organization.queue.isEmpty()) {
+        activeOrganizations.pollFirst();
+        organization.active = false;
+        organization.deficit = 0;
+      } else if (organization.deficit <= 0) {
+        rotate(organization);
+      }
+      return organization;
+    }
+    return null;
+  }
+
+  private void rotate(Organization organization) {
+    activeOrganizations.pollFirst();
+    activeOrganizations.addLast(organization);
+  }
+
+  private record PartitionedTask(long partitionKey, Runnable task) {
+  }
+
+  private record ScheduledTask(Organization organization, PartitionedTask task) {
+  }
+
+  private class Organization {
+
+    private final long                        id;
+
+    private final int                         weight;
+
+    private final ArrayDeque<PartitionedTask> queue             = new ArrayDeque<>();
+
+    private final LongHashSet                 runningPartitions = new LongHashSet();
+
+    private PartitionedTask                   nextTask;
+
+    private boolean                           active;
+
+    private int                               deficit;
+
+    private int                               running;
+
+    private long                              completedTaskCount;
+
+    public Organization(long id) {
+      this.id = id;
+      this.weight = Math.max(1, organizationWeights.getOrDefault(id, 1));
+    }
+
+    /**
+     * @return first queued task which partition isn't being processed, so that
+     *         tasks of a partition are processed in submission order
+     */
+    public PartitionedTask pollRunnableTask() {
+      Iterator<PartitionedTask> iterator = queue.iterator();
+      int scanned = 0;
+      while (iterator.hasNext() && scanned++ < MAX_QUEUE_SCAN) {
+        PartitionedTask task = iterator.next();
+        if (!runningPartitions.contains(task.partitionKey())) {
+          iterator.remove();
+          return task;
+        }
+      }
+      return null;
+    }
+  }
+
+}
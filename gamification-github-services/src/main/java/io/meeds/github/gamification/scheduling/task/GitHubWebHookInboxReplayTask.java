@@ -0,0 +1,40 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.scheduling.task;
+
+import io.meeds.github.gamification.services.GithubTriggerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * A service that will periodically replay the persisted github webhook
+ * deliveries that weren't processed.
+ */
+@Component
+public class GitHubWebHookInboxReplayTask {
+
+  @Autowired
+  private GithubTriggerService githubTriggerService;
+
+  @Scheduled(fixedDelayString = "${io.meeds.gamification.github.webhook.inbox.replayInterval:60000}",
+             initialDelayString = "${io.meeds.gamification.github.webhook.inbox.replayInterval:60000}")
+  public void execute() {
+    githubTriggerService.replayPendingDeliveries();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services;
+
+public interface CacheInvalidationService {
+
+  /**
+   * Name of the event broadcasted locally when a cache entry has to be
+   * invalidated after a modification made by another node of the cluster. The
+   * event source is the cache name and the event data is the cache key.
+   */
+  String CACHE_INVALIDATED_EVENT = "github.cache.invalidated";
+
+  /** Cached webhook registration and API responses of an organization */
+  String WEBHOOK_CACHE           = "webhook";
+
+  /** Cached disabled repositories of an organization */
+  String REPOSITORY_STATUS_CACHE = "repositoryStatus";
+
+  /** Cached platform username associated to a GitHub login */
+  String ACCOUNT_CACHE           = "account";
+
+  /** Indexed GitHub gamification event and rule, the key is the rule id */
+  String RULE_CACHE              = "rule";
+
+  /**
+   * Cached enablement of a trigger for an organization, the key is the
+   * organization id and the trigger name separated by ':'
+   */
+  String TRIGGER_CACHE           = "trigger";
+
+  /**
+   * Notifies the other nodes of the cluster that a cache entry has to be
+   * invalidated. The invalidation is recorded in database and applied by the
+   * other nodes at their next poll.
+   *
+   * @param cacheName invalidated cache name
+   * @param cacheKey invalidated cache key
+   */
+  void invalidate(String cacheName, String cacheKey);
+
+  /**
+   * Applies locally the invalidations recorded by the other nodes of the
+   * cluster since the last call, then purges the outdated invalidations
+   */
+  void processInvalidations();
+
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services;
+
+import java.util.List;
+
+import io.meeds.gamification.model.EventDTO;
+
+public interface EventIndexService {
+
+  /**
+   * Checks whether a gamification event is registered with the given title
+   *
+   * @param eventTitle gamification event title, which is the GitHub connector
+   *          trigger name
+   * @return true if at least one gamification event exists with this title
+   */
+  boolean isEventRegistered(String eventTitle);
+
+  /**
+   * Retrieves the titles of gamification events cancelled by a GitHub
+   * connector trigger
+   *
+   * @param cancellerTrigger GitHub connector trigger name
+   * @return {@link List} of cancelled event titles, empty if the trigger
+   *         doesn't cancel any event
+   */
+  List<String> getCancelledEventTitles(String cancellerTrigger);
+
+  /**
+   * Removes from index the entries related to a GitHub gamification event,
+   * its title and its canceller triggers, so that they're reloaded lazily on
+   * next lookups
+   *
+   * @param event created or updated {@link EventDTO}
+   */
+  void updateEvent(EventDTO event);
+
+  /**
+   * Clears the indexed gamification events, so that it's rebuilt lazily, per
+   * trigger, on next lookups
+   */
+  void clearEventsIndex();
+
+}
@@ -0,0 +1,51 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services;
+
+public interface GithubAccountService {
+
+  /**
+   * Retrieves the platform username associated to a GitHub login. Both
+   * connected and not connected logins are cached, so that deliveries sent by
+   * bots and outside contributors don't cost a lookup each time. Since the
+   * disconnection of an account isn't notified, a connected login is cached
+   * for a limited time only.
+   *
+   * @param login GitHub user login
+   * @return associated platform username, null if the GitHub login isn't
+   *         connected to any platform user
+   */
+  String getAssociatedUsername(String login);
+
+  /**
+   * Removes the cached association of a GitHub login being connected to a
+   * platform user. Until the association is saved, or the connection timeout
+   * elapses, the login is looked up each time rather than cached as not
+   * connected.
+   *
+   * @param login GitHub user login
+   */
+  void clearAssociatedUsername(String login);
+
+  /**
+   * Removes all cached GitHub logins associations
+   */
+  void clearAssociatedUsernames();
+
+}
@@ -17,6 +17,8 @@
  */
 package io.meeds.github.gamification.services;
 
+import io.meeds.github.gamification.exception.GithubRateLimitException;
+import io.meeds.github.gamification.model.CacheStatistics;
 import io.meeds.github.gamification.model.RemoteOrganization;
 import io.meeds.github.gamification.model.WebHook;
 import org.exoplatform.commons.exception.ObjectNotFoundException;
@@ -80,8 +82,10 @@ public interface GithubConsumerService {
    *
    * @param webHook webHook
    * @return response status
+   * @throws GithubRateLimitException when the call is deferred because the
+   *           webhook access token rate limit budget runs low
    */
-  String forceUpdateWebhook(WebHook webHook);
+  String forceUpdateWebhook(WebHook webHook) throws GithubRateLimitException;
 
   /**
    * Check gitHub personal access token
@@ -90,4 +94,29 @@ public interface GithubConsumerService {
    * @return {@link TokenStatus}
    */
   TokenStatus checkGitHubTokenStatus(String accessToken);
+
+  /**
+   * Retrieves the statistics of GitHub API responses caches
+   *
+   * @param currentUser user name attempting to access caches statistics
+   * @return {@link List} of {@link CacheStatistics}
+   * @throws IllegalAccessException when user is not authorized to access
+   *           caches statistics
+   */
+  List<CacheStatistics> getCacheStatistics(String currentUser) throws IllegalAccessException;
+
+  /**
+   * Clears the cached GitHub API responses and access tokens status
+   */
+  void clearCaches();
+
+  /**
+   * Clears the cached GitHub API responses of an organization and the status
+   * of its access token
+   *
+   * @param organizationId gitHub organization remote Id
+   * @param organizationName gitHub organization name, null if unknown
+   * @param accessToken organization access token, null if unknown
+   */
+  void clearCaches(long organizationId, String organizationName, String accessToken);
 }
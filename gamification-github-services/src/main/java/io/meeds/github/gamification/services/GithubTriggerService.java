@@ -17,6 +17,8 @@
  */
 package io.meeds.github.gamification.services;
 
+import io.meeds.github.gamification.model.IngestionStatistics;
+import io.meeds.github.gamification.model.WebhookContext;
 import io.meeds.github.gamification.plugin.GithubTriggerPlugin;
 
 public interface GithubTriggerService {
@@ -36,13 +38,48 @@ public interface GithubTriggerService {
   void removePlugin(String triggerName);
 
   /**
-   * Handle github trigger asynchronously
+   * Handle github trigger asynchronously. The delivery is persisted before
+   * being queued, so that it can be replayed if the server stops before
+   * processing it or if the ingestion queue is saturated.
    *
    * @param trigger gitHub sent trigger.
    * @param signature The signature received from the external system.
+   * @param deliveryId GitHub delivery GUID sent in 'X-GitHub-Delivery' header
    * @param payload payload The raw payload of the webhook request.
+   * @throws java.util.concurrent.RejectedExecutionException when the delivery
+   *           can't be stored in the inbox
+   * @throws IllegalAccessException when the delivery signature is invalid
    */
-  void handleTriggerAsync(String trigger, String signature, String payload);
+  void handleTriggerAsync(String trigger, String signature, String deliveryId, String payload) throws IllegalAccessException;
+
+  /**
+   * Handle github trigger asynchronously using the raw request body. A
+   * delivery which GUID was already received, by this node or by another node
+   * of the cluster, is ignored, so that GitHub redeliveries aren't rewarded
+   * twice, unless its processing failed, in which case it's processed again.
+   *
+   * @param trigger gitHub sent trigger.
+   * @param signature The signature received from the external system, sha256
+   *          or sha1 prefixed
+   * @param deliveryId GitHub delivery GUID sent in 'X-GitHub-Delivery' header,
+   *          mandatory
+   * @param payload The raw bytes of the webhook request body.
+   * @throws java.util.concurrent.RejectedExecutionException when the delivery
+   *           can't be stored in the inbox
+   * @throws IllegalAccessException when the delivery signature is invalid
+   * @throws IllegalArgumentException when the delivery GUID is blank
+   */
+  void handleTriggerAsync(String trigger, String signature, String deliveryId, byte[] payload) throws IllegalAccessException;
+
+  /**
+   * Submits to processing the persisted webhook deliveries that weren't
+   * processed yet and aren't queued by any node: deliveries that couldn't be
+   * queued in memory, those queued by a stopped node which lease has expired
+   * and those which processing was interrupted by a server stop. The leases
+   * of deliveries still queued by the current node are renewed. Processed
+   * deliveries older than retention period are purged.
+   */
+  void replayPendingDeliveries();
 
   /**
    * Handle github trigger
@@ -52,4 +89,29 @@ public interface GithubTriggerService {
    * @param payload payload The raw payload of the webhook request.
    */
   void handleTrigger(String trigger, String signature, String payload);
+
+  /**
+   * Handle github trigger using a delivery context which payload is parsed
+   * only once for all processing steps
+   *
+   * @param webhookContext {@link WebhookContext} of the received delivery
+   */
+  void handleTrigger(WebhookContext webhookContext);
+
+  /**
+   * Retrieves the webhook ingestion queue statistics
+   *
+   * @param currentUser user name attempting to access the statistics
+   * @return {@link IngestionStatistics}
+   * @throws IllegalAccessException when user is not authorized to access the
+   *           statistics
+   */
+  IngestionStatistics getIngestionStatistics(String currentUser) throws IllegalAccessException;
+
+  /**
+   * Retrieves the webhook ingestion queue statistics
+   *
+   * @return {@link IngestionStatistics}
+   */
+  IngestionStatistics getIngestionStatistics();
 }
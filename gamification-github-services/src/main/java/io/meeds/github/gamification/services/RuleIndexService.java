@@ -0,0 +1,57 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services;
+
+import io.meeds.gamification.model.RuleDTO;
+
+public interface RuleIndexService {
+
+  /**
+   * Checks whether at least one GitHub rule matches an organization and a
+   * repository. Rules without repositories filter match any repository of
+   * their organization.
+   *
+   * @param eventTitle gamification event title
+   * @param organizationId GitHub organization remote Id
+   * @param repositoryId GitHub repository remote Id
+   * @return true if at least one rule matches
+   */
+  boolean hasMatchingRules(String eventTitle, long organizationId, long repositoryId);
+
+  /**
+   * Indexes a created or updated GitHub rule, or removes it from index when
+   * deleted or not triggered by a GitHub event anymore
+   *
+   * @param rule {@link RuleDTO}
+   */
+  void updateRule(RuleDTO rule);
+
+  /**
+   * Removes a deleted GitHub rule from index
+   *
+   * @param ruleId deleted rule technical identifier
+   */
+  void removeRule(long ruleId);
+
+  /**
+   * Clears the rules index, so that it's rebuilt from database on next lookup
+   */
+  void clearRulesIndex();
+
+}
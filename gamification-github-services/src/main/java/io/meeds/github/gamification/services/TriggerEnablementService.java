@@ -0,0 +1,59 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services;
+
+public interface TriggerEnablementService {
+
+  /**
+   * Checks whether a gamification trigger is enabled for a GitHub
+   * organization. The result is answered from an in-memory matrix of (trigger,
+   * organization) pairs, the gamification trigger service is only asked for
+   * pairs that weren't loaded yet or which entry expired. A change made from
+   * the connector administration is notified through
+   * {@link #refreshTriggerEnablement(String, long, String)}, other changes are
+   * taken into account once the entry time to live is elapsed.
+   *
+   * @param trigger gamification trigger name
+   * @param organizationId GitHub organization remote Id
+   * @return true if the trigger is enabled for the organization, else false
+   */
+  boolean isTriggerEnabledForAccount(String trigger, long organizationId);
+
+  /**
+   * Evicts the cached enablement of a trigger for a GitHub organization, on
+   * all nodes of the cluster, after it has been enabled or disabled
+   *
+   * @param trigger gamification trigger name
+   * @param organizationId GitHub organization remote Id
+   * @param currentUser user changing the trigger enablement
+   * @throws IllegalAccessException when the user isn't authorized to manage
+   *           triggers
+   */
+  void refreshTriggerEnablement(String trigger, long organizationId, String currentUser) throws IllegalAccessException;
+
+  /**
+   * Evicts the locally cached enablement of a trigger for a GitHub
+   * organization
+   *
+   * @param trigger gamification trigger name
+   * @param organizationId GitHub organization remote Id
+   */
+  void clearTriggerEnablement(String trigger, long organizationId);
+
+}
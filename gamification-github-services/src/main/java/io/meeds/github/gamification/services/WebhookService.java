@@ -19,6 +19,7 @@
 package io.meeds.github.gamification.services;
 
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.model.WebhookContext;
 import org.exoplatform.commons.ObjectAlreadyExistsException;
 import org.exoplatform.commons.exception.ObjectNotFoundException;
 import io.meeds.github.gamification.model.RemoteRepository;
@@ -103,6 +104,12 @@ public interface WebhookService {
    */
   boolean verifyWebhookSecret(String payload, String signature);
 
+  /**
+   * @param webhookContext {@link WebhookContext} of the received delivery
+   * @return true if the computed signature matches the delivery signature.
+   */
+  boolean verifyWebhookSecret(WebhookContext webhookContext);
+
   /**
    * Check if webhook repository is enabled
    *
@@ -111,6 +118,14 @@ public interface WebhookService {
    */
   boolean isWebHookRepositoryEnabled(String payload);
 
+  /**
+   * Check if webhook repository is enabled
+   *
+   * @param webhookContext {@link WebhookContext} of the received delivery
+   * @return true if the intended repository is enabled, else false.
+   */
+  boolean isWebHookRepositoryEnabled(WebhookContext webhookContext);
+
   /**
    * Check if webhook repository is enabled
    *
@@ -135,6 +150,21 @@ public interface WebhookService {
                                    boolean enabled,
                                    String currentUser) throws IllegalAccessException;
 
+  /**
+   * enables/disables a list of repositories at once
+   *
+   * @param organizationRemoteId gitHub organization remote Id
+   * @param repositoryRemoteIds gitHub repositories remote Ids
+   * @param enabled true to enabled, else false
+   * @param currentUser user name attempting to enables/disables repositories.
+   * @throws IllegalAccessException when user is not authorized enables/disables
+   *           repositories
+   */
+  void setWebHookRepositoriesEnabled(long organizationRemoteId,
+                                     List<Long> repositoryRemoteIds,
+                                     boolean enabled,
+                                     String currentUser) throws IllegalAccessException;
+
   /**
    * Check if webhook watch limit is enabled
    *
@@ -167,5 +197,22 @@ public interface WebhookService {
    **/
   void forceUpdateWebhooks();
 
+  /**
+   * Clears the locally cached webhook registration, repositories status and
+   * GitHub API responses of an organization, after its webhook has been
+   * modified by another node of the cluster. The cached data of the other
+   * organizations is kept.
+   *
+   * @param organizationId gitHub organization remote Id
+   */
+  void clearWebhookCaches(long organizationId);
+
+  /**
+   * Clears the locally cached repositories status of an organization, after
+   * it has been modified by another node of the cluster
+   *
+   * @param organizationId gitHub organization remote Id
+   */
+  void clearRepositoriesStatusCache(long organizationId);
 
 }
@@ -0,0 +1,129 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services.impl;
+
+import java.util.Date;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import io.meeds.github.gamification.model.CacheInvalidation;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.storage.CacheInvalidationStorage;
+import org.exoplatform.services.listener.ListenerService;
+import org.exoplatform.services.log.ExoLogger;
+import org.exoplatform.services.log.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CacheInvalidationServiceImpl implements CacheInvalidationService {
+
+  private static final Log         LOG    = ExoLogger.getLogger(CacheInvalidationServiceImpl.class);
+
+  /** Identifier of the current node, to not apply its own invalidations */
+  private final String             nodeId = UUID.randomUUID().toString();
+
+  @Autowired
+  private CacheInvalidationStorage cacheInvalidationStorage;
+
+  @Autowired
+  private ListenerService          listenerService;
+
+  @Value("${io.meeds.gamification.github.cache.invalidation.batchSize:100}")
+  private int                      batchSize;
+
+  /**
+   * Time, in seconds, during which the recorded invalidations are kept in
+   * database
+   */
+  @Value("${io.meeds.gamification.github.cache.invalidation.retention:3600}")
+  private long                     retention;
+
+  /**
+   * Number of identifiers, before the last applied one, read again on each
+   * poll, so that the invalidations committed after an invalidation with a
+   * greater identifier aren't missed
+   */
+  @Value("${io.meeds.gamification.github.cache.invalidation.overlap:100}")
+  private int                      overlap;
+
+  private long                     lastInvalidationId = -1;
+
+  /** Applied invalidations identifiers within the overlap window */
+  private final NavigableSet<Long> appliedInvalidationIds = new TreeSet<>();
+
+  private long                     lastPurgeTime;
+
+  @Override
+  public void invalidate(String cacheName, String cacheKey) {
+    try {
+      cacheInvalidationStorage.saveInvalidation(cacheName, cacheKey, nodeId);
+    } catch (RuntimeException e) {
+      LOG.warn("Error while notifying cluster nodes of invalidation of cache {} entry {}", cacheName, cacheKey, e);
+    }
+  }
+
+  @Override
+  public synchronized void processInvalidations() {
+    if (lastInvalidationId < 0) {
+      // Local caches are filled after startup, thus older invalidations are
+      // useless
+      lastInvalidationId = cacheInvalidationStorage.getLastInvalidationId();
+      cacheInvalidationStorage.getInvalidations(Math.max(lastInvalidationId - overlap, 0), overlap)
+                              .stream()
+                              .map(CacheInvalidation::getId)
+                              .filter(id -> id <= lastInvalidationId)
+                              .forEach(appliedInvalidationIds::add);
+      return;
+    }
+    long fromInvalidationId = Math.max(lastInvalidationId - overlap, 0);
+    List<CacheInvalidation> invalidations;
+    do {
+      invalidations = cacheInvalidationStorage.getInvalidations(fromInvalidationId, batchSize);
+      for (CacheInvalidation invalidation : invalidations) {
+        fromInvalidationId = invalidation.getId();
+        if (appliedInvalidationIds.add(invalidation.getId())) {
+          lastInvalidationId = Math.max(lastInvalidationId, invalidation.getId());
+          if (!nodeId.equals(invalidation.getNodeId())) {
+            applyInvalidation(invalidation);
+          }
+        }
+      }
+    } while (invalidations.size() == batchSize);
+    // Identifiers before the overlap window aren't read again
+    appliedInvalidationIds.headSet(lastInvalidationId - overlap, false).clear();
+
+    long now = System.currentTimeMillis();
+    if (now - lastPurgeTime > retention * 1000) {
+      cacheInvalidationStorage.purgeInvalidations(new Date(now - retention * 1000));
+      lastPurgeTime = now;
+    }
+  }
+
+  private void applyInvalidation(CacheInvalidation invalidation) {
+    try {
+      listenerService.broadcast(CACHE_INVALIDATED_EVENT, invalidation.getCacheName(), invalidation.getCacheKey());
+    } catch (Exception e) {
+      LOG.warn("Error while invalidating cache {} entry {}", invalidation.getCacheName(), invalidation.getCacheKey(), e);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services.impl;
+
+import static io.meeds.github.gamification.utils.Utils.CONNECTOR_NAME;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import io.meeds.gamification.model.EventDTO;
+import io.meeds.gamification.service.EventService;
+import io.meeds.github.gamification.services.EventIndexService;
+
+@Service
+public class EventIndexServiceImpl implements EventIndexService {
+
+  @Autowired
+  private EventService                    eventService;
+
+  private final Map<String, Boolean>      registeredEvents = new ConcurrentHashMap<>();
+
+  private final Map<String, List<String>> cancelledEvents  = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented on each index update, so that an entry loaded concurrently
+   * isn't kept in the index once stale
+   */
+  private final AtomicLong                generation       = new AtomicLong();
+
+  @Override
+  public boolean isEventRegistered(String eventTitle) {
+    Boolean registered = registeredEvents.get(eventTitle);
+    if (registered == null) {
+      // Loaded outside of the map entry lock, since it accesses database
+      long loadGeneration = generation.get();
+      registered = CollectionUtils.isNotEmpty(eventService.getEventsByTitle(eventTitle, 0, -1));
+      registered = index(registeredEvents, eventTitle, registered, loadGeneration);
+    }
+    return registered;
+  }
+
+  @Override
+  public List<String> getCancelledEventTitles(String cancellerTrigger) {
+    List<String> eventTitles = cancelledEvents.get(cancellerTrigger);
+    if (eventTitles == null) {
+      long loadGeneration = generation.get();
+      eventTitles = loadCancelledEventTitles(cancellerTrigger);
+      eventTitles = index(cancelledEvents, cancellerTrigger, eventTitles, loadGeneration);
+    }
+    return eventTitles;
+  }
+
+  @Override
+  public void updateEvent(EventDTO event) {
+    if (event == null || !StringUtils.equals(CONNECTOR_NAME, event.getType())) {
+      return;
+    }
+    generation.incrementAndGet();
+    registeredEvents.remove(event.getTitle());
+    // Triggers which cancelled the event before its update
+    cancelledEvents.values().removeIf(eventTitles -> eventTitles.contains(event.getTitle()));
+    if (event.getCancellerEvents() != null) {
+      event.getCancellerEvents().forEach(cancelledEvents::remove);
+    }
+  }
+
+  @Override
+  public void clearEventsIndex() {
+    generation.incrementAndGet();
+    registeredEvents.clear();
+    cancelledEvents.clear();
+  }
+
+  private <V> V index(Map<String, V> index, String key, V value, long loadGeneration) {
+    V existingValue = index.putIfAbsent(key, value);
+    if (existingValue != null) {
+      return existingValue;
+    } else if (loadGeneration != generation.get()) {
+      // The index was updated while loading, the loaded value may be stale
+      index.remove(key, value);
+    }
+    return value;
+  }
+
+  private List<String> loadCancelledEventTitles(String cancellerTrigger) {
+    List<EventDTO> eventsToCancel = eventService.getEventsByCancellerTrigger(CONNECTOR_NAME, cancellerTrigger, 0, -1);
+    if (CollectionUtils.isEmpty(eventsToCancel)) {
+      return Collections.emptyList();
+    }
+    return eventsToCancel.stream().map(EventDTO::getTitle).toList();
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services.impl;
+
+import static io.meeds.github.gamification.utils.Utils.CONNECTOR_NAME;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.meeds.gamification.service.ConnectorService;
+import io.meeds.github.gamification.services.GithubAccountService;
+
+@Service
+public class GithubAccountServiceImpl implements GithubAccountService {
+
+  @Autowired
+  private ConnectorService                 connectorService;
+
+  @Value("${io.meeds.gamification.github.accounts.cacheSize:5000}")
+  private int                              cacheSize;
+
+  /** Time to live, in seconds, of a GitHub login connected to a platform user */
+  @Value("${io.meeds.gamification.github.accounts.connectedTtl:600}")
+  private long                             connectedTtl;
+
+  /** Time to live, in seconds, of a GitHub login not connected to any user */
+  @Value("${io.meeds.gamification.github.accounts.notConnectedTtl:600}")
+  private long                             notConnectedTtl;
+
+  /** Time, in seconds, given to a GitHub login being connected to be saved */
+  @Value("${io.meeds.gamification.github.accounts.connectionTimeout:60}")
+  private long                             connectionTimeout;
+
+  private final Map<String, AccountEntry> associatedUsernames = new LinkedHashMap<>(16, 0.75f, true) {
+    private static final long serialVersionUID = 4726382140973515213L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, AccountEntry> eldest) {
+      return size() > cacheSize;
+    }
+  };
+
+  @Override
+  public String getAssociatedUsername(String login) {
+    if (StringUtils.isBlank(login)) {
+      return null;
+    }
+    long now = System.currentTimeMillis();
+    AccountEntry accountEntry;
+    synchronized (associatedUsernames) {
+      accountEntry = associatedUsernames.get(login);
+    }
+    boolean connecting = accountEntry != null && accountEntry.connecting() && accountEntry.expiryTime() >= now;
+    if (accountEntry != null && !connecting && accountEntry.expiryTime() >= now) {
+      return accountEntry.username();
+    }
+    String username = connectorService.getAssociatedUsername(CONNECTOR_NAME, login);
+    if (StringUtils.isNotBlank(username) || !connecting) {
+      // While the login is being connected, its association may not be saved
+      // yet, thus it isn't cached as not connected
+      long ttl = StringUtils.isBlank(username) ? notConnectedTtl : connectedTtl;
+      synchronized (associatedUsernames) {
+        associatedUsernames.put(login, new AccountEntry(username, now + ttl * 1000, false));
+      }
+    }
+    return username;
+  }
+
+  @Override
+  public void clearAssociatedUsername(String login) {
+    if (StringUtils.isNotBlank(login)) {
+      AccountEntry accountEntry = new AccountEntry(null, System.currentTimeMillis() + connectionTimeout * 1000, true);
+      synchronized (associatedUsernames) {
+        associatedUsernames.put(login, accountEntry);
+      }
+    }
+  }
+
+  @Override
+  public void clearAssociatedUsernames() {
+    synchronized (associatedUsernames) {
+      associatedUsernames.clear();
+    }
+  }
+
+  private record AccountEntry(String username, long expiryTime, boolean connecting) {
+  }
+
+}
@@ -17,6 +17,8 @@
  */
 package io.meeds.github.gamification.services.impl;
 
+import io.meeds.github.gamification.exception.GithubRateLimitException;
+import io.meeds.github.gamification.model.CacheStatistics;
 import io.meeds.github.gamification.model.RemoteOrganization;
 import io.meeds.github.gamification.model.WebHook;
 import org.exoplatform.commons.exception.ObjectNotFoundException;
@@ -24,17 +26,28 @@ import io.meeds.github.gamification.model.RemoteRepository;
 import io.meeds.github.gamification.model.TokenStatus;
 import io.meeds.github.gamification.services.GithubConsumerService;
 import io.meeds.github.gamification.storage.GithubConsumerStorage;
+import io.meeds.github.gamification.storage.cache.BoundedCache;
+import io.meeds.gamification.utils.Utils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+import static io.meeds.github.gamification.storage.cache.CacheConfig.ORGANIZATION_REPOS_CACHE;
+import static io.meeds.github.gamification.storage.cache.CacheConfig.REMOTE_ORGANIZATION_CACHE;
+
 @Service
 public class GithubConsumerServiceImpl implements GithubConsumerService {
 
   @Autowired
   private GithubConsumerStorage githubConsumerStorage;
 
+  @Autowired
+  private CacheManager          cacheManager;
+
   @Override
   public WebHook createWebhook(String organizationName, String[] triggers, String accessToken) throws IllegalAccessException {
     return githubConsumerStorage.createWebhook(organizationName, triggers, accessToken);
@@ -46,7 +59,7 @@ public class GithubConsumerServiceImpl implements GithubConsumerService {
   }
 
   @Override
-  public String forceUpdateWebhook(WebHook webHook) {
+  public String forceUpdateWebhook(WebHook webHook) throws GithubRateLimitException {
     return githubConsumerStorage.forceUpdateWebhook(webHook);
   }
 
@@ -74,4 +87,39 @@ public class GithubConsumerServiceImpl implements GithubConsumerService {
   public TokenStatus checkGitHubTokenStatus(String token) {
     return githubConsumerStorage.checkGitHubTokenStatus(token);
   }
+
+  @Override
+  public List<CacheStatistics> getCacheStatistics(String currentUser) throws IllegalAccessException {
+    if (!Utils.isRewardingManager(currentUser)) {
+      throw new IllegalAccessException("The user is not authorized to access gitHub caches statistics");
+    }
+    return cacheManager.getCacheNames()
+                       .stream()
+                       .map(cacheManager::getCache)
+                       .filter(BoundedCache.class::isInstance)
+                       .map(cache -> ((BoundedCache) cache).getStatistics())
+                       .toList();
+  }
+
+  @Override
+  public void clearCaches() {
+    githubConsumerStorage.clearCaches();
+  }
+
+  @Override
+  public void clearCaches(long organizationId, String organizationName, String accessToken) {
+    Cache remoteOrganizationCache = cacheManager.getCache(REMOTE_ORGANIZATION_CACHE);
+    if (remoteOrganizationCache != null) {
+      remoteOrganizationCache.evict(organizationId);
+    }
+    if (StringUtils.isNotBlank(organizationName)
+        && cacheManager.getCache(ORGANIZATION_REPOS_CACHE) instanceof BoundedCache organizationReposCache) {
+      // Keys are prefixed by the organization name
+      String keyPrefix = organizationName + "#";
+      organizationReposCache.evictIf(key -> key instanceof String cacheKey && cacheKey.startsWith(keyPrefix));
+    }
+    if (StringUtils.isNotBlank(accessToken)) {
+      githubConsumerStorage.clearCaches(accessToken);
+    }
+  }
 }
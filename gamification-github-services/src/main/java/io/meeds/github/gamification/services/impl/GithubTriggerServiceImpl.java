@@ -17,18 +17,24 @@
  */
 package io.meeds.github.gamification.services.impl;
 
+import io.meeds.github.gamification.listener.GithubEventsListener;
 import io.meeds.github.gamification.model.Event;
-import io.meeds.gamification.model.EventDTO;
-import io.meeds.gamification.service.ConnectorService;
-import io.meeds.gamification.service.EventService;
-import io.meeds.gamification.service.TriggerService;
-import org.apache.commons.collections.CollectionUtils;
+import io.meeds.gamification.utils.Utils;
+import io.meeds.github.gamification.model.IngestionStatistics;
+import io.meeds.github.gamification.model.WebhookContext;
+import io.meeds.github.gamification.model.WebhookDelivery;
+import io.meeds.github.gamification.scheduling.executor.PartitionedExecutor;
+import io.meeds.github.gamification.storage.WebhookDeliveryStorage;
 import org.apache.commons.lang3.StringUtils;
-import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.exoplatform.commons.ObjectAlreadyExistsException;
 import org.exoplatform.commons.api.persistence.ExoTransactional;
 import org.exoplatform.container.ExoContainerContext;
 import io.meeds.github.gamification.plugin.GithubTriggerPlugin;
+import io.meeds.github.gamification.services.EventIndexService;
+import io.meeds.github.gamification.services.GithubAccountService;
 import io.meeds.github.gamification.services.GithubTriggerService;
+import io.meeds.github.gamification.services.RuleIndexService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
 import io.meeds.github.gamification.services.WebhookService;
 import org.exoplatform.services.listener.ListenerService;
 import org.exoplatform.services.log.ExoLogger;
@@ -37,29 +43,39 @@ import org.exoplatform.social.core.identity.model.Identity;
 import org.exoplatform.social.core.manager.IdentityManager;
 import org.picocontainer.Startable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static io.meeds.github.gamification.listener.GithubEventsListener.GAMIFICATION_CANCEL_EVENT;
+import static io.meeds.github.gamification.listener.GithubEventsListener.GAMIFICATION_GENERIC_EVENT;
 import static io.meeds.github.gamification.utils.Utils.*;
 
 @Service
 public class GithubTriggerServiceImpl implements GithubTriggerService, Startable {
 
-  private static final Log                       LOG            = ExoLogger.getLogger(GithubTriggerServiceImpl.class);
+  private static final Log                       LOG                    = ExoLogger.getLogger(GithubTriggerServiceImpl.class);
 
-  private final Map<String, GithubTriggerPlugin> triggerPlugins = new HashMap<>();
+  private static final String                    VIRTUAL_EXECUTION_MODE = "virtual";
+
+  private final Map<String, GithubTriggerPlugin> triggerPlugins         = new HashMap<>();
+
+  @Autowired
+  private GithubAccountService                   githubAccountService;
 
   @Autowired
-  private ConnectorService                       connectorService;
+  private EventIndexService                      eventIndexService;
 
   @Autowired
-  private EventService                           eventService;
+  private RuleIndexService                       ruleIndexService;
 
   @Autowired
-  private TriggerService                         triggerService;
+  private TriggerEnablementService               triggerEnablementService;
 
   @Autowired
   private WebhookService                         webhookService;
@@ -70,13 +86,144 @@ public class GithubTriggerServiceImpl implements GithubTriggerService, Startable
   @Autowired
   private ListenerService                        listenerService;
 
-  private ExecutorService                        executorService;
+  @Autowired
+  private WebhookDeliveryStorage                 webhookDeliveryStorage;
+
+  /**
+   * Whether gamification actions are broadcasted directly to gamification
+   * listeners or through the 'github.action.event' and
+   * 'github.cancel.action.event' events relayed by {@link GithubEventsListener}
+   */
+  @Value("${io.meeds.gamification.github.events.directDispatch:true}")
+  private boolean                                directDispatch;
+
+  @Value("${io.meeds.gamification.github.webhook.workers:5}")
+  private int                                    workers;
+
+  /**
+   * Deliveries execution mode: 'platform' to process deliveries on a fixed
+   * pool of workers, or 'virtual' to process each delivery on a virtual thread
+   * while they mostly block on database and platform services
+   */
+  @Value("${io.meeds.gamification.github.webhook.executionMode:platform}")
+  private String                                 executionMode;
+
+  /**
+   * Maximum number of deliveries processed concurrently on virtual threads
+   */
+  @Value("${io.meeds.gamification.github.webhook.maxInFlight:200}")
+  private int                                    maxInFlight;
+
+  /**
+   * Whether deliveries are dispatched per repository rather than per
+   * organization, which spreads the deliveries of a single organization on
+   * more processing lanes. Ordering within a lane is best-effort: retried and
+   * replayed deliveries can be overtaken by newer ones.
+   */
+  @Value("${io.meeds.gamification.github.webhook.partitionByRepository:false}")
+  private boolean                                partitionByRepository;
+
+  @Value("${io.meeds.gamification.github.webhook.queueCapacity:500}")
+  private int                                    queueCapacity;
+
+  @Value("${io.meeds.gamification.github.webhook.organization.queueCapacity:200}")
+  private int                                    organizationQueueCapacity;
+
+  @Value("${io.meeds.gamification.github.webhook.organization.concurrency:1}")
+  private int                                    organizationConcurrency;
+
+  /**
+   * Number of deliveries processed per scheduling round for organizations
+   * which weight differs from 1, using 'organizationId:weight' comma separated
+   * values
+   */
+  @Value("${io.meeds.gamification.github.webhook.organization.weights:}")
+  private String                                 organizationWeights;
+
+  @Value("${io.meeds.gamification.github.webhook.inbox.batchSize:100}")
+  private int                                    replayBatchSize;
+
+  /**
+   * Duration, in seconds, of the lease taken by a node on the deliveries it
+   * queues. The lease is renewed while the delivery waits in the node queue,
+   * so that only the deliveries of a stopped node, or which couldn't be
+   * queued, are replayed once it expires.
+   */
+  @Value("${io.meeds.gamification.github.webhook.inbox.replayDelay:120}")
+  private long                                   replayDelay;
+
+  @Value("${io.meeds.gamification.github.webhook.inbox.processingTimeout:600}")
+  private long                                   processingTimeout;
+
+  /**
+   * Maximum number of processing attempts of a delivery before switching it
+   * to failed status
+   */
+  @Value("${io.meeds.gamification.github.webhook.inbox.maxAttempts:5}")
+  private int                                    maxAttempts;
+
+  /**
+   * Delay, in seconds, before the first retry of a failed delivery, doubled
+   * at each subsequent attempt
+   */
+  @Value("${io.meeds.gamification.github.webhook.inbox.retryDelay:60}")
+  private long                                   retryDelay;
+
+  @Value("${io.meeds.gamification.github.webhook.inbox.retention:86400}")
+  private long                                   retention;
+
+  private final AtomicLong                       rejectedDeliveries         = new AtomicLong();
+
+  private final AtomicLong                       deferredDeliveries         = new AtomicLong();
+
+  private final AtomicLong                       invalidSignatureDeliveries = new AtomicLong();
+
+  private final AtomicLong                       ignoredDeliveries          = new AtomicLong();
+
+  private final AtomicLong                       duplicateDeliveries        = new AtomicLong();
+
+  /**
+   * Maximum number of recently processed delivery GUIDs kept in memory to drop
+   * GitHub redeliveries without parsing the payload nor accessing database.
+   * Other redeliveries are detected by the unique delivery GUID of the webhook
+   * deliveries inbox, which queues again the failed ones.
+   */
+  @Value("${io.meeds.gamification.github.webhook.deduplication.cacheSize:10000}")
+  private int                                    deduplicationCacheSize;
+
+  /**
+   * Time window, in seconds, during which a processed delivery GUID is kept in
+   * memory
+   */
+  @Value("${io.meeds.gamification.github.webhook.deduplication.window:3600}")
+  private long                                   deduplicationWindow;
+
+  private Map<String, Long>                      processedDeliveries;
+
+  private final String                           nodeId                     = UUID.randomUUID().toString();
+
+  private final Set<Long>                        queuedDeliveries           = ConcurrentHashMap.newKeySet();
+
+  private PartitionedExecutor                    executorService;
 
   @Override
   public void start() {
-    QueuedThreadPool threadFactory = new QueuedThreadPool(5, 1, 1);
-    threadFactory.setName("Gamification - Github connector");
-    executorService = Executors.newCachedThreadPool(threadFactory);
+    boolean virtualThreads = StringUtils.equalsIgnoreCase(executionMode, VIRTUAL_EXECUTION_MODE);
+    executorService = new PartitionedExecutor(virtualThreads ? maxInFlight : workers,
+                                              virtualThreads,
+                                              queueCapacity,
+                                              organizationQueueCapacity,
+                                              organizationConcurrency,
+                                              parseOrganizationWeights(organizationWeights),
+                                              "Gamification - Github connector-%d");
+    processedDeliveries = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = 6021497343417935413L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+        return size() > deduplicationCacheSize;
+      }
+    };
   }
 
   @Override
@@ -96,44 +243,361 @@ public class GithubTriggerServiceImpl implements GithubTriggerService, Startable
     triggerPlugins.remove(name);
   }
 
-  public void handleTriggerAsync(String trigger, String signature, String payload) {
-    executorService.execute(() -> handleTriggerAsyncInternal(trigger, signature, payload));
+  @Override
+  public void handleTriggerAsync(String trigger,
+                                 String signature,
+                                 String deliveryId,
+                                 String payload) throws IllegalAccessException {
+    handleTriggerAsync(trigger, signature, deliveryId, payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public void handleTriggerAsync(String trigger,
+                                 String signature,
+                                 String deliveryId,
+                                 byte[] payload) throws IllegalAccessException {
+    if (StringUtils.isBlank(deliveryId)) {
+      throw new IllegalArgumentException("Github delivery GUID is mandatory");
+    }
+    if (isDeliveryProcessed(deliveryId)) {
+      long duplicates = duplicateDeliveries.incrementAndGet();
+      LOG.debug("Github delivery {} of trigger {} already processed, ignore it. Total duplicates: {}",
+                deliveryId,
+                trigger,
+                duplicates);
+      return;
+    }
+    WebhookContext webhookContext = new WebhookContext(trigger, signature, payload);
+    if (!canProduceEvents(webhookContext)) {
+      ignoredDeliveries.incrementAndGet();
+      return;
+    }
+    if (!getWebhookService().verifyWebhookSecret(webhookContext)) {
+      long rejected = invalidSignatureDeliveries.incrementAndGet();
+      LOG.debug("Github delivery of trigger {} for organization {} rejected, invalid signature. Total rejected: {}",
+                trigger,
+                webhookContext.getOrganizationId(),
+                rejected);
+      throw new IllegalAccessException("Invalid github webhook signature");
+    }
+    long organizationId = webhookContext.getOrganizationId();
+    WebhookDelivery delivery;
+    try {
+      delivery = webhookDeliveryStorage.saveDelivery(deliveryId,
+                                                     trigger,
+                                                     signature,
+                                                     payload,
+                                                     nodeId,
+                                                     getLeaseExpiryDate());
+    } catch (RuntimeException e) {
+      // The delivery can't be replayed, let GitHub know that it wasn't handled
+      rejectDelivery(trigger, e);
+      return;
+    } catch (ObjectAlreadyExistsException e) {
+      // Already received, and not failed, by any node of the cluster
+      long duplicates = duplicateDeliveries.incrementAndGet();
+      LOG.debug("Github delivery {} of trigger {} already stored, ignore it. Total duplicates: {}",
+                deliveryId,
+                trigger,
+                duplicates);
+      return;
+    }
+    try {
+      queueDelivery(delivery, webhookContext);
+    } catch (RejectedExecutionException e) {
+      // The delivery is already persisted, it will be replayed by the inbox
+      // scheduled task once the organization queue is drained and its lease
+      // expired
+      long deferred = deferredDeliveries.incrementAndGet();
+      LOG.debug("Github webhook ingestion queue of organization {} is full, delivery {} deferred to inbox replay. Total deferred: {}",
+                organizationId,
+                delivery.getId(),
+                deferred);
+    }
+  }
+
+  @Override
+  public void replayPendingDeliveries() {
+    long now = System.currentTimeMillis();
+    int released = webhookDeliveryStorage.releaseStaleDeliveries(new Date(now - processingTimeout * 1000));
+    if (released > 0) {
+      LOG.warn("{} Github webhook deliveries were interrupted while processing, they will be replayed", released);
+    }
+    if (!queuedDeliveries.isEmpty()) {
+      // Keep the deliveries waiting in the local queue from being replayed by
+      // other nodes
+      webhookDeliveryStorage.renewLeases(queuedDeliveries, nodeId, getLeaseExpiryDate());
+    }
+    List<WebhookDelivery> deliveries = webhookDeliveryStorage.getPendingDeliveries(new Date(now), replayBatchSize);
+    Set<Long> saturatedOrganizations = new HashSet<>();
+    for (WebhookDelivery delivery : deliveries) {
+      if (queuedDeliveries.contains(delivery.getId())) {
+        continue;
+      }
+      WebhookContext webhookContext = new WebhookContext(delivery.getEvent(), delivery.getSignature(), delivery.getPayload());
+      long organizationId = webhookContext.getOrganizationId() == null ? 0 : webhookContext.getOrganizationId();
+      if (saturatedOrganizations.contains(organizationId)) {
+        // Don't replay older deliveries of the organization after newer ones
+        // of this batch, ordering stays best-effort though: newer deliveries
+        // already received may have been processed before these ones
+        continue;
+      }
+      if (executorService.remainingCapacity(organizationId) == 0) {
+        saturatedOrganizations.add(organizationId);
+        continue;
+      }
+      if (!webhookDeliveryStorage.leaseDelivery(delivery.getId(), nodeId, getLeaseExpiryDate())) {
+        // Replayed concurrently by another node
+        continue;
+      }
+      try {
+        queueDelivery(delivery, webhookContext);
+      } catch (RejectedExecutionException e) {
+        LOG.debug("Github webhook ingestion queue of organization {} is full, replay of its pending deliveries postponed",
+                  organizationId);
+        saturatedOrganizations.add(organizationId);
+      }
+    }
+    webhookDeliveryStorage.purgeDeliveries(new Date(now - retention * 1000));
+  }
+
+  @Override
+  public IngestionStatistics getIngestionStatistics(String currentUser) throws IllegalAccessException {
+    if (!Utils.isRewardingManager(currentUser)) {
+      throw new IllegalAccessException("The user is not authorized to access gitHub webhook ingestion statistics");
+    }
+    return getIngestionStatistics();
+  }
+
+  @Override
+  public IngestionStatistics getIngestionStatistics() {
+    if (executorService == null) {
+      return new IngestionStatistics(queueCapacity,
+                                     0,
+                                     workers,
+                                     0,
+                                     rejectedDeliveries.get(),
+                                     deferredDeliveries.get(),
+                                     invalidSignatureDeliveries.get(),
+                                     ignoredDeliveries.get(),
+                                     duplicateDeliveries.get(),
+                                     0,
+                                     Collections.emptyList());
+    }
+    return new IngestionStatistics(executorService.getQueueCapacity(),
+                                   executorService.getQueueSize(),
+                                   executorService.getWorkersCount(),
+                                   executorService.getActiveCount(),
+                                   rejectedDeliveries.get(),
+                                   deferredDeliveries.get(),
+                                   invalidSignatureDeliveries.get(),
+                                   ignoredDeliveries.get(),
+                                   duplicateDeliveries.get(),
+                                   executorService.getCompletedTaskCount(),
+                                   executorService.getOrganizationsStatistics());
+  }
+
+  private boolean isDeliveryProcessed(String deliveryId) {
+    if (deliveryId == null || processedDeliveries == null) {
+      return false;
+    }
+    synchronized (processedDeliveries) {
+      Long expiryTime = processedDeliveries.get(deliveryId);
+      if (expiryTime == null) {
+        return false;
+      } else if (expiryTime < System.currentTimeMillis()) {
+        processedDeliveries.remove(deliveryId);
+        return false;
+      } else {
+        return true;
+      }
+    }
+  }
+
+  private void setDeliveryProcessed(String deliveryId) {
+    if (deliveryId == null || processedDeliveries == null) {
+      return;
+    }
+    synchronized (processedDeliveries) {
+      processedDeliveries.put(deliveryId, System.currentTimeMillis() + deduplicationWindow * 1000);
+    }
+  }
+
+  private void rejectDelivery(String trigger, RuntimeException cause) {
+    long rejected = rejectedDeliveries.incrementAndGet();
+    LOG.warn("Github webhook delivery of trigger {} can't be stored in inbox, delivery rejected. Total rejected: {}",
+             trigger,
+             rejected,
+             cause);
+    throw new RejectedExecutionException("Github webhook delivery can't be stored in inbox", cause);
+  }
+
+  private void queueDelivery(WebhookDelivery delivery, WebhookContext webhookContext) {
+    long organizationId = webhookContext.getOrganizationId() == null ? 0 : webhookContext.getOrganizationId();
+    queuedDeliveries.add(delivery.getId());
+    try {
+      executorService.execute(organizationId,
+                              getPartitionKey(webhookContext),
+                              () -> processDelivery(delivery, webhookContext));
+    } catch (RejectedExecutionException e) {
+      queuedDeliveries.remove(delivery.getId());
+      throw e;
+    }
+  }
+
+  private Date getLeaseExpiryDate() {
+    return new Date(System.currentTimeMillis() + replayDelay * 1000);
+  }
+
+  /**
+   * Processes a delivery which signature was verified before storing it in
+   * the inbox, reusing the delivery context already parsed when queuing it
+   */
+  private void processDelivery(WebhookDelivery delivery, WebhookContext webhookContext) {
+    queuedDeliveries.remove(delivery.getId());
+    if (!webhookDeliveryStorage.claimDelivery(delivery.getId(), nodeId)) {
+      // Already processed, or queued again by another node after the lease
+      // expiry
+      return;
+    }
+    boolean success = false;
+    try {
+      handleTriggerAsyncInternal(webhookContext);
+      success = true;
+    } catch (Exception e) {
+      LOG.error("Error while processing Github webhook delivery {} of trigger {}", delivery.getId(), delivery.getEvent(), e);
+    } finally {
+      if (success) {
+        webhookDeliveryStorage.completeDelivery(delivery.getId(), true);
+        setDeliveryProcessed(delivery.getDeliveryId());
+      } else {
+        failDelivery(delivery);
+      }
+    }
+  }
+
+  private void failDelivery(WebhookDelivery delivery) {
+    int attempts = delivery.getAttempts() + 1;
+    if (attempts < maxAttempts) {
+      // Exponential backoff to let transient errors, such as database or
+      // platform services unavailability, recover
+      long backoff = retryDelay * 1000 * (1L << Math.min(attempts - 1, 16));
+      webhookDeliveryStorage.retryDelivery(delivery.getId(), attempts, new Date(System.currentTimeMillis() + backoff));
+      LOG.warn("Github webhook delivery {} will be retried in {}s, attempt {}/{}",
+               delivery.getId(),
+               backoff / 1000,
+               attempts,
+               maxAttempts);
+    } else {
+      webhookDeliveryStorage.completeDelivery(delivery.getId(), false);
+      LOG.warn("Github webhook delivery {} failed after {} attempts", delivery.getId(), attempts);
+    }
   }
 
   @ExoTransactional
-  public void handleTriggerAsyncInternal(String trigger, String signature, String payload) {
-    handleTrigger(trigger, signature, payload);
+  public void handleTriggerAsyncInternal(WebhookContext webhookContext) {
+    if (canProduceEvents(webhookContext)) {
+      handleVerifiedTrigger(webhookContext);
+    }
   }
 
   @Override
   public void handleTrigger(String trigger, String signature, String payload) {
-    if (!getWebhookService().verifyWebhookSecret(payload, signature)
-        || !getWebhookService().isWebHookRepositoryEnabled(payload)) {
+    handleTrigger(new WebhookContext(trigger, signature, payload));
+  }
+
+  @Override
+  public void handleTrigger(WebhookContext webhookContext) {
+    if (canProduceEvents(webhookContext) && getWebhookService().verifyWebhookSecret(webhookContext)) {
+      handleVerifiedTrigger(webhookContext);
+    }
+  }
+
+  private void handleVerifiedTrigger(WebhookContext webhookContext) {
+    if (!getWebhookService().isWebHookRepositoryEnabled(webhookContext)) {
       return;
     }
-    Map<String, Object> payloadMap = fromJsonStringToMap(payload);
-    String organizationId = extractSubItem(payloadMap, "organization", ID);
-    List<Event> events = new ArrayList<>();
-    GithubTriggerPlugin triggerPlugin = getGithubTriggerPlugin(trigger);
-    if (triggerPlugin != null) {
-      events = triggerPlugin.getEvents(payloadMap);
+    GithubTriggerPlugin triggerPlugin = getGithubTriggerPlugin(webhookContext.getTrigger());
+    List<Event> events = triggerPlugin.getEvents(webhookContext);
+    processEvents(events, webhookContext.getOrganizationId());
+  }
+
+  private Map<Long, Integer> parseOrganizationWeights(String weights) {
+    Map<Long, Integer> weightsByOrganization = new HashMap<>();
+    for (String organizationWeight : StringUtils.split(StringUtils.defaultString(weights), ',')) {
+      String[] parts = StringUtils.split(organizationWeight.trim(), ':');
+      if (parts.length == 2 && StringUtils.isNumeric(parts[0].trim()) && StringUtils.isNumeric(parts[1].trim())) {
+        weightsByOrganization.put(Long.parseLong(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+      } else {
+        LOG.warn("Ignoring invalid github organization weight '{}'", organizationWeight);
+      }
     }
-    processEvents(events, organizationId);
+    return weightsByOrganization;
   }
 
-  private void processEvents(List<Event> events, String organizationId) {
-    events.stream().filter(event -> isTriggerEnabled(event.getName(), organizationId)).forEach(this::processEvent);
+  /**
+   * Computes the key used to dispatch the delivery on processing lanes, so
+   * that deliveries of the same organization, or repository, are processed
+   * sequentially. This is a best-effort ordering: a failed delivery is retried
+   * after a backoff and a delivery lost by a node is replayed after its lease
+   * expiry, both while newer deliveries of the same lane keep being processed.
+   */
+  private long getPartitionKey(WebhookContext webhookContext) {
+    Long organizationId = webhookContext.getOrganizationId();
+    long partitionKey = organizationId == null ? 0 : organizationId;
+    if (partitionByRepository && webhookContext.getRepositoryId() != null) {
+      partitionKey = partitionKey * 31 + webhookContext.getRepositoryId();
+    }
+    return partitionKey;
+  }
+
+  /**
+   * Triage the delivery using the fields read by the streaming parser only, so
+   * that deliveries that can't produce any event are dropped before binding
+   * the whole payload.
+   */
+  private boolean canProduceEvents(WebhookContext webhookContext) {
+    GithubTriggerPlugin triggerPlugin = getGithubTriggerPlugin(webhookContext.getTrigger());
+    if (triggerPlugin == null
+        || webhookContext.getOrganizationId() == null
+        || !triggerPlugin.isActionHandled(webhookContext.getAction())) {
+      LOG.debug("Github delivery of trigger {} with action {} ignored", webhookContext.getTrigger(), webhookContext.getAction());
+      return false;
+    }
+    return true;
   }
 
-  private boolean isTriggerEnabled(String trigger, String organizationId) {
-    return triggerService.isTriggerEnabledForAccount(trigger, Long.parseLong(organizationId));
+  private void processEvents(List<Event> events, long organizationId) {
+    events.stream()
+          .filter(event -> isTriggerEnabled(event.getName(), organizationId))
+          .filter(event -> hasMatchingRules(event, organizationId))
+          .forEach(this::processEvent);
+  }
+
+  /**
+   * Checks whether at least one rule of the organization and repository is
+   * triggered or cancelled by the event, so that events which can't be
+   * rewarded are dropped before resolving users and broadcasting them.
+   */
+  private boolean hasMatchingRules(Event event, long organizationId) {
+    long repositoryId = StringUtils.isNumeric(event.getRepositoryId()) ? Long.parseLong(event.getRepositoryId()) : UNKNOWN_ID;
+    if (eventIndexService.isEventRegistered(event.getName())) {
+      return ruleIndexService.hasMatchingRules(event.getName(), organizationId, repositoryId);
+    }
+    return eventIndexService.getCancelledEventTitles(event.getName())
+                            .stream()
+                            .anyMatch(eventTitle -> ruleIndexService.hasMatchingRules(eventTitle, organizationId, repositoryId));
+  }
+
+  private boolean isTriggerEnabled(String trigger, long organizationId) {
+    return triggerEnablementService.isTriggerEnabledForAccount(trigger, organizationId);
   }
 
   private void processEvent(Event event) {
-    String receiverId = connectorService.getAssociatedUsername(CONNECTOR_NAME, event.getReceiver());
+    String receiverId = githubAccountService.getAssociatedUsername(event.getReceiver());
     String senderId;
     if (event.getSender() != null && !StringUtils.equals(event.getReceiver(), event.getSender())) {
-      senderId = connectorService.getAssociatedUsername(CONNECTOR_NAME, event.getSender());
+      senderId = githubAccountService.getAssociatedUsername(event.getSender());
     } else {
       senderId = receiverId;
     }
@@ -147,25 +611,16 @@ public class GithubTriggerServiceImpl implements GithubTriggerService, Startable
 
   private void broadcastGithubEvent(Event event, String senderId, String receiverId) {
     try {
-      String eventDetails = "{" + "organizationId" + ": " + event.getOrganizationId() + ", " + "repositoryId" + ": "
-          + event.getRepositoryId() + "}";
-      Map<String, String> gam = new HashMap<>();
-      gam.put("senderId", senderId);
-      gam.put("receiverId", receiverId);
-      gam.put("objectId", event.getObjectId());
-      gam.put("objectType", event.getObjectType());
-      gam.put("eventDetails", eventDetails);
-      List<EventDTO> eventDTOList = eventService.getEventsByTitle(event.getName(), 0, -1);
-      if (CollectionUtils.isNotEmpty(eventDTOList)) {
-        gam.put("ruleTitle", event.getName());
-        listenerService.broadcast(GITHUB_ACTION_EVENT, gam, "");
+      String eventDetails = buildEventDetails(event.getOrganizationId(), event.getRepositoryId());
+      if (eventIndexService.isEventRegistered(event.getName())) {
+        listenerService.broadcast(directDispatch ? GAMIFICATION_GENERIC_EVENT : GITHUB_ACTION_EVENT,
+                                  newGamificationAction(event, event.getName(), senderId, receiverId, eventDetails),
+                                  "");
       } else {
-        List<EventDTO> eventsToCancel = eventService.getEventsByCancellerTrigger(CONNECTOR_NAME, event.getName(), 0, -1);
-        if (CollectionUtils.isNotEmpty(eventsToCancel)) {
-          for (EventDTO eventToCancel : eventsToCancel) {
-            gam.put("ruleTitle", eventToCancel.getTitle());
-            listenerService.broadcast(GITHUB_CANCEL_ACTION_EVENT, gam, "");
-          }
+        for (String cancelledEventTitle : eventIndexService.getCancelledEventTitles(event.getName())) {
+          listenerService.broadcast(directDispatch ? GAMIFICATION_CANCEL_EVENT : GITHUB_CANCEL_ACTION_EVENT,
+                                    newGamificationAction(event, cancelledEventTitle, senderId, receiverId, eventDetails),
+                                    "");
         }
       }
       LOG.info("Github action {} broadcasted for user {}", event.getName(), senderId);
@@ -174,6 +629,21 @@ public class GithubTriggerServiceImpl implements GithubTriggerService, Startable
     }
   }
 
+  private Map<String, String> newGamificationAction(Event event,
+                                                    String ruleTitle,
+                                                    String senderId,
+                                                    String receiverId,
+                                                    String eventDetails) {
+    Map<String, String> gam = new HashMap<>(8);
+    gam.put("objectId", event.getObjectId());
+    gam.put("objectType", event.getObjectType());
+    gam.put("ruleTitle", ruleTitle);
+    gam.put("senderId", senderId);
+    gam.put("receiverId", receiverId);
+    gam.put("eventDetails", eventDetails);
+    return Collections.unmodifiableMap(gam);
+  }
+
   private GithubTriggerPlugin getGithubTriggerPlugin(String trigger) {
     return triggerPlugins.get(trigger);
   }
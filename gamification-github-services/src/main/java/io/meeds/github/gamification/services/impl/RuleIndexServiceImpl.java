@@ -0,0 +1,211 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services.impl;
+
+import static io.meeds.github.gamification.utils.Utils.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import io.meeds.gamification.model.EventDTO;
+import io.meeds.gamification.model.RuleDTO;
+import io.meeds.gamification.model.filter.RuleFilter;
+import io.meeds.gamification.service.RuleService;
+import io.meeds.github.gamification.services.RuleIndexService;
+import io.meeds.github.gamification.utils.LongHashSet;
+
+@Service
+public class RuleIndexServiceImpl implements RuleIndexService {
+
+  /**
+   * Bucket of rules that apply to all repositories of an organization
+   */
+  private static final long        ANY_REPOSITORY = -1;
+
+  @Autowired
+  private RuleService              ruleService;
+
+  /**
+   * Immutable snapshot of the index: rule ids by event title, organization id
+   * and repository id, replaced as a whole on each change
+   */
+  private volatile RulesIndex      rulesIndex;     // NOSONAR
+
+  @Override
+  public boolean hasMatchingRules(String eventTitle, long organizationId, long repositoryId) {
+    Map<Long, Set<Long>> repositoryRules = getRulesIndex().get(eventTitle, organizationId);
+    return repositoryRules != null
+        && (repositoryRules.containsKey(ANY_REPOSITORY)
+            || (repositoryId != UNKNOWN_ID && repositoryRules.containsKey(repositoryId)));
+  }
+
+  @Override
+  public synchronized void updateRule(RuleDTO rule) {
+    if (rulesIndex == null) {
+      // Not loaded yet, the rule will be indexed with the other ones
+      return;
+    }
+    RulesIndex updatedRulesIndex = rulesIndex.copy();
+    updatedRulesIndex.remove(rule.getId());
+    if (!rule.isDeleted() && rule.getEvent() != null && CONNECTOR_NAME.equals(rule.getEvent().getType())) {
+      updatedRulesIndex.add(rule);
+    }
+    rulesIndex = updatedRulesIndex;
+  }
+
+  @Override
+  public synchronized void removeRule(long ruleId) {
+    if (rulesIndex == null) {
+      return;
+    }
+    RulesIndex updatedRulesIndex = rulesIndex.copy();
+    updatedRulesIndex.remove(ruleId);
+    rulesIndex = updatedRulesIndex;
+  }
+
+  @Override
+  public synchronized void clearRulesIndex() {
+    rulesIndex = null;
+  }
+
+  private RulesIndex getRulesIndex() {
+    RulesIndex index = rulesIndex;
+    if (index == null) {
+      index = loadRulesIndex();
+    }
+    return index;
+  }
+
+  private synchronized RulesIndex loadRulesIndex() {
+    if (rulesIndex == null) {
+      RuleFilter ruleFilter = new RuleFilter(true);
+      ruleFilter.setEventType(CONNECTOR_NAME);
+      List<RuleDTO> rules = ruleService.getRules(ruleFilter, 0, -1);
+      RulesIndex index = new RulesIndex();
+      rules.forEach(index::add);
+      rulesIndex = index;
+    }
+    return rulesIndex;
+  }
+
+  private static class RulesIndex {
+
+    private final Map<String, Map<Long, Map<Long, Set<Long>>>> ruleIds;
+
+    private final Map<Long, IndexedRule>                       indexedRules;
+
+    public RulesIndex() {
+      this(new HashMap<>(), new HashMap<>());
+    }
+
+    private RulesIndex(Map<String, Map<Long, Map<Long, Set<Long>>>> ruleIds, Map<Long, IndexedRule> indexedRules) {
+      this.ruleIds = ruleIds;
+      this.indexedRules = indexedRules;
+    }
+
+    public Map<Long, Set<Long>> get(String eventTitle, long organizationId) {
+      Map<Long, Map<Long, Set<Long>>> organizationRules = ruleIds.get(eventTitle);
+      return organizationRules == null ? null : organizationRules.get(organizationId);
+    }
+
+    public void add(RuleDTO rule) {
+      EventDTO event = rule.getEvent();
+      if (rule.getId() == null || event == null || event.getTitle() == null || event.getProperties() == null) {
+        return;
+      }
+      String organizationId = event.getProperties().get(ORGANIZATION_ID);
+      if (!StringUtils.isNumeric(organizationId)) {
+        return;
+      }
+      IndexedRule indexedRule = new IndexedRule(event.getTitle(),
+                                                Long.parseLong(organizationId),
+                                                getRepositoryIds(event.getProperties().get(REPOSITORY_IDS)));
+      indexedRules.put(rule.getId(), indexedRule);
+      Map<Long, Set<Long>> repositoryRules = ruleIds.computeIfAbsent(indexedRule.eventTitle(), key -> new HashMap<>())
+                                                    .computeIfAbsent(indexedRule.organizationId(), key -> new HashMap<>());
+      for (long repositoryId : indexedRule.repositoryIds()) {
+        repositoryRules.computeIfAbsent(repositoryId, key -> new HashSet<>()).add(rule.getId());
+      }
+    }
+
+    public void remove(long ruleId) {
+      IndexedRule indexedRule = indexedRules.remove(ruleId);
+      if (indexedRule == null) {
+        return;
+      }
+      Map<Long, Map<Long, Set<Long>>> organizationRules = ruleIds.get(indexedRule.eventTitle());
+      Map<Long, Set<Long>> repositoryRules = organizationRules.get(indexedRule.organizationId());
+      for (long repositoryId : indexedRule.repositoryIds()) {
+        Set<Long> repositoryRuleIds = repositoryRules.get(repositoryId);
+        repositoryRuleIds.remove(ruleId);
+        if (repositoryRuleIds.isEmpty()) {
+          repositoryRules.remove(repositoryId);
+        }
+      }
+      if (repositoryRules.isEmpty()) {
+        organizationRules.remove(indexedRule.organizationId());
+      }
+      if (organizationRules.isEmpty()) {
+        ruleIds.remove(indexedRule.eventTitle());
+      }
+    }
+
+    public RulesIndex copy() {
+      Map<String, Map<Long, Map<Long, Set<Long>>>> ruleIdsCopy = new HashMap<>();
+      ruleIds.forEach((eventTitle, organizationRules) -> {
+        Map<Long, Map<Long, Set<Long>>> organizationRulesCopy = new HashMap<>();
+        organizationRules.forEach((organizationId, repositoryRules) -> {
+          Map<Long, Set<Long>> repositoryRulesCopy = new HashMap<>();
+          repositoryRules.forEach((repositoryId, ids) -> repositoryRulesCopy.put(repositoryId, new HashSet<>(ids)));
+          organizationRulesCopy.put(organizationId, repositoryRulesCopy);
+        });
+        ruleIdsCopy.put(eventTitle, organizationRulesCopy);
+      });
+      return new RulesIndex(ruleIdsCopy, new HashMap<>(indexedRules));
+    }
+
+    private static long[] getRepositoryIds(String repositoryIds) {
+      LongHashSet ids = new LongHashSet();
+      if (StringUtils.isNotBlank(repositoryIds)) {
+        for (String repositoryId : StringUtils.split(repositoryIds, ',')) {
+          String trimmedRepositoryId = repositoryId.trim();
+          if (StringUtils.isNumeric(trimmedRepositoryId)) {
+            ids.add(Long.parseLong(trimmedRepositoryId));
+          }
+        }
+      }
+      if (ids.isEmpty()) {
+        // Blank repositories filter, the rule applies to any repository
+        ids.add(ANY_REPOSITORY);
+      }
+      return ids.toArray();
+    }
+  }
+
+  private record IndexedRule(String eventTitle, long organizationId, long[] repositoryIds) {
+  }
+
+}
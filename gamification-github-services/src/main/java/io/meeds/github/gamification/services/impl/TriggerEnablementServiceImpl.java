@@ -0,0 +1,87 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.services.impl;
+
+import static io.meeds.github.gamification.services.CacheInvalidationService.TRIGGER_CACHE;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.meeds.gamification.service.TriggerService;
+import io.meeds.gamification.utils.Utils;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
+
+@Service
+public class TriggerEnablementServiceImpl implements TriggerEnablementService {
+
+  @Autowired
+  private TriggerService                              triggerService;
+
+  @Autowired
+  private CacheInvalidationService                    cacheInvalidationService;
+
+  /**
+   * Time to live, in seconds, of a (trigger, organization) enablement entry,
+   * used as a safety net for changes which aren't notified
+   */
+  @Value("${io.meeds.gamification.github.triggers.enablement.ttl:300}")
+  private long                                        ttl;
+
+  private final Map<String, Map<Long, TriggerEnablement>> enablementMatrix = new ConcurrentHashMap<>();
+
+  @Override
+  public boolean isTriggerEnabledForAccount(String trigger, long organizationId) {
+    Map<Long, TriggerEnablement> organizationsEnablement = enablementMatrix.computeIfAbsent(trigger,
+                                                                                             key -> new ConcurrentHashMap<>());
+    TriggerEnablement triggerEnablement = organizationsEnablement.get(organizationId);
+    long now = System.currentTimeMillis();
+    if (triggerEnablement == null || triggerEnablement.expiryTime() < now) {
+      boolean enabled = triggerService.isTriggerEnabledForAccount(trigger, organizationId);
+      triggerEnablement = new TriggerEnablement(enabled, now + ttl * 1000);
+      organizationsEnablement.put(organizationId, triggerEnablement);
+    }
+    return triggerEnablement.enabled();
+  }
+
+  @Override
+  public void refreshTriggerEnablement(String trigger, long organizationId, String currentUser) throws IllegalAccessException {
+    if (!Utils.isRewardingManager(currentUser)) {
+      throw new IllegalAccessException("The user is not authorized to update trigger status");
+    }
+    clearTriggerEnablement(trigger, organizationId);
+    cacheInvalidationService.invalidate(TRIGGER_CACHE, organizationId + ":" + trigger);
+  }
+
+  @Override
+  public void clearTriggerEnablement(String trigger, long organizationId) {
+    Map<Long, TriggerEnablement> organizationsEnablement = enablementMatrix.get(trigger);
+    if (organizationsEnablement != null) {
+      organizationsEnablement.remove(organizationId);
+    }
+  }
+
+  private record TriggerEnablement(boolean enabled, long expiryTime) {
+  }
+
+}
@@ -18,11 +18,17 @@
 package io.meeds.github.gamification.services.impl;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import io.meeds.github.gamification.exception.GithubRateLimitException;
 import io.meeds.github.gamification.model.RemoteOrganization;
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.model.WebhookContext;
+import io.meeds.github.gamification.model.WebhookRegistration;
+import io.meeds.github.gamification.storage.RepositoryStatusStorage;
 import io.meeds.github.gamification.storage.WebHookStorage;
+import io.meeds.github.gamification.utils.LongHashSet;
 import io.meeds.gamification.model.RuleDTO;
 import io.meeds.gamification.model.filter.RuleFilter;
 import io.meeds.gamification.service.RuleService;
@@ -37,16 +43,18 @@ import org.exoplatform.commons.api.settings.SettingService;
 import org.exoplatform.commons.api.settings.SettingValue;
 import io.meeds.github.gamification.model.RemoteRepository;
 import io.meeds.github.gamification.model.TokenStatus;
+import io.meeds.github.gamification.services.CacheInvalidationService;
 import io.meeds.github.gamification.services.GithubConsumerService;
 import io.meeds.github.gamification.services.WebhookService;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import static io.meeds.github.gamification.services.CacheInvalidationService.REPOSITORY_STATUS_CACHE;
+import static io.meeds.github.gamification.services.CacheInvalidationService.WEBHOOK_CACHE;
 import static io.meeds.github.gamification.utils.Utils.*;
 
 @Service
@@ -72,6 +80,20 @@ public class WebhookServiceImpl implements WebhookService {
   @Autowired
   private RuleService           ruleService;
 
+  @Autowired
+  private RepositoryStatusStorage repositoryStatusStorage;
+
+  @Autowired
+  private CacheInvalidationService cacheInvalidationService;
+
+  private final Map<Long, LongHashSet> disabledRepositories = new ConcurrentHashMap<>();
+
+  /**
+   * Incremented on each repository status change, so that a disabled
+   * repositories set loaded concurrently isn't kept in cache once stale
+   */
+  private final AtomicLong             disabledRepositoriesGeneration = new AtomicLong();
+
   public Page<WebHook> getWebhooks(String currentUser, Pageable pageable) throws IllegalAccessException {
     if (!Utils.isRewardingManager(currentUser)) {
       throw new IllegalAccessException(AUTHORIZED_TO_ACCESS_GIT_HUB_HOOKS);
@@ -128,7 +150,9 @@ public class WebhookServiceImpl implements WebhookService {
     if (webHook != null) {
       webHook.setOrganizationId(remoteOrganization.getId());
       webHook.setWatchedBy(currentUser);
-      return webHookStorage.saveWebHook(webHook);
+      webHook = webHookStorage.saveWebHook(webHook);
+      invalidateWebhookCaches(webHook.getOrganizationId());
+      return webHook;
     }
     return null;
   }
@@ -146,6 +170,7 @@ public class WebhookServiceImpl implements WebhookService {
       throw new ObjectNotFoundException("webhook with id : " + webHookId + " wasn't found");
     }
     webHookStorage.updateWebHookAccessToken(webHookId, encode(accessToken));
+    invalidateWebhookCaches(webHook.getOrganizationId());
   }
 
   public void deleteWebhook(long organizationId, String currentUser) throws IllegalAccessException, ObjectNotFoundException {
@@ -164,6 +189,7 @@ public class WebhookServiceImpl implements WebhookService {
 
   public void deleteWebhook(long organizationId) {
     webHookStorage.deleteWebHook(organizationId);
+    invalidateWebhookCaches(organizationId);
     RuleFilter ruleFilter = new RuleFilter(true);
     ruleFilter.setEventType(CONNECTOR_NAME);
     ruleFilter.setIncludeDeleted(true);
@@ -183,36 +209,46 @@ public class WebhookServiceImpl implements WebhookService {
 
   @Override
   public boolean verifyWebhookSecret(String payload, String signature) {
-    JSONObject jsonPayload = new JSONObject(payload);
-    JSONObject organization = jsonPayload.getJSONObject("organization");
-    long organizationId = organization.getLong(ID);
-    WebHook webHook = webHookStorage.getWebhookByOrganizationId(organizationId);
-    if (webHook != null) {
-      return verifySignature(webHook.getSecret(), payload, signature);
+    return verifyWebhookSecret(new WebhookContext(null, signature, payload));
+  }
+
+  @Override
+  public boolean verifyWebhookSecret(WebhookContext webhookContext) {
+    Long organizationId = webhookContext.getOrganizationId();
+    if (organizationId == null) {
+      return false;
+    }
+    WebhookRegistration webhookRegistration = webHookStorage.getWebhookRegistration(organizationId);
+    if (webhookRegistration != null) {
+      return verifySignature(webhookRegistration.getSecret(), webhookContext.getPayload(), webhookContext.getSignature());
     }
     return false;
   }
 
   @Override
   public boolean isWebHookRepositoryEnabled(String payload) {
-    Map<String, Object> payloadMap = fromJsonStringToMap(payload);
-    String organizationId = extractSubItem(payloadMap, "organization", "id");
-    String repositoryId = extractSubItem(payloadMap, "repository", "id");
+    return isWebHookRepositoryEnabled(new WebhookContext(null, null, payload));
+  }
+
+  @Override
+  public boolean isWebHookRepositoryEnabled(WebhookContext webhookContext) {
+    Long organizationId = webhookContext.getOrganizationId();
+    Long repositoryId = webhookContext.getRepositoryId();
+    if (organizationId != null) {
+      WebhookRegistration webhookRegistration = webHookStorage.getWebhookRegistration(organizationId);
+      if (webhookRegistration != null && !webhookRegistration.isEnabled()) {
+        return false;
+      }
+    }
     if (organizationId != null && repositoryId != null) {
-      return isWebHookRepositoryEnabled(Long.parseLong(organizationId), Long.parseLong(repositoryId));
+      return isWebHookRepositoryEnabled(organizationId, repositoryId);
     }
     return true;
   }
 
   @Override
   public boolean isWebHookRepositoryEnabled(long organizationId, long repositoryId) {
-    List<Long> disabledRepositoryList = new ArrayList<>();
-    SettingValue<?> settingValue =
-                                 settingService.get(GITHUB_WEBHOOK_CONTEXT, DISABLED_REPOS_SCOPE, String.valueOf(organizationId));
-    if (settingValue != null && settingValue.getValue() != null && StringUtils.isNotBlank(settingValue.getValue().toString())) {
-      disabledRepositoryList = Arrays.stream(settingValue.getValue().toString().split(":")).map(Long::parseLong).toList();
-    }
-    return !disabledRepositoryList.contains(repositoryId);
+    return !getDisabledRepositories(organizationId).contains(repositoryId);
   }
 
   @Override
@@ -220,29 +256,24 @@ public class WebhookServiceImpl implements WebhookService {
                                           long repositoryId,
                                           boolean enabled,
                                           String currentUser) throws IllegalAccessException {
+    setWebHookRepositoriesEnabled(organizationId, List.of(repositoryId), enabled, currentUser);
+  }
+
+  @Override
+  public void setWebHookRepositoriesEnabled(long organizationId,
+                                            List<Long> repositoryIds,
+                                            boolean enabled,
+                                            String currentUser) throws IllegalAccessException {
     if (!Utils.isRewardingManager(currentUser)) {
       throw new IllegalAccessException("The user is not authorized to update repository status");
     }
-    List<Long> disabledRepositoryList = new ArrayList<>();
-    SettingValue<?> settingValue =
-                                 settingService.get(GITHUB_WEBHOOK_CONTEXT, DISABLED_REPOS_SCOPE, String.valueOf(organizationId));
-    if (settingValue != null && settingValue.getValue() != null && StringUtils.isNotBlank(settingValue.getValue().toString())) {
-      disabledRepositoryList = Arrays.stream(settingValue.getValue().toString().split(":"))
-                                     .map(Long::parseLong)
-                                     .collect(Collectors.toList());
-    }
-    if (!enabled) {
-      if (!disabledRepositoryList.contains(repositoryId)) {
-        disabledRepositoryList.add(repositoryId);
-      }
-    } else {
-      disabledRepositoryList.remove(repositoryId);
+    if (CollectionUtils.isEmpty(repositoryIds)) {
+      return;
     }
-    String disabledRepositories = disabledRepositoryList.stream().map(String::valueOf).collect(Collectors.joining(":"));
-    settingService.set(GITHUB_WEBHOOK_CONTEXT,
-                       DISABLED_REPOS_SCOPE,
-                       String.valueOf(organizationId),
-                       SettingValue.create(disabledRepositories));
+    repositoryStatusStorage.setRepositoriesEnabled(organizationId, repositoryIds, enabled);
+    // Reloaded from database by next read
+    evictDisabledRepositories(organizationId);
+    cacheInvalidationService.invalidate(REPOSITORY_STATUS_CACHE, String.valueOf(organizationId));
   }
 
   @Override
@@ -285,16 +316,93 @@ public class WebhookServiceImpl implements WebhookService {
     if (!tokenStatus.isValid() || tokenStatus.getRemaining() == 0) {
       return;
     }
-    String response = githubServiceConsumer.forceUpdateWebhook(webHook);
+    String response;
+    try {
+      response = githubServiceConsumer.forceUpdateWebhook(webHook);
+    } catch (GithubRateLimitException e) {
+      LOG.debug("GitHub webhook {} refresh deferred, its access token rate limit budget is running low",
+                webHook.getWebhookId());
+      return;
+    }
     if (response == null) {
       webHookStorage.deleteWebHook(webHook.getOrganizationId());
+      invalidateWebhookCaches(webHook.getOrganizationId());
     } else {
       Map<String, Object> resultMap = fromJsonStringToMap(response);
       List<String> events = (List<String>) resultMap.get(EVENTS);
       if (!CollectionUtils.isEqualCollection(events, webHook.getTriggers())) {
         webHook.setTriggers(events);
         webHookStorage.updateWebHook(webHook, true);
+        invalidateWebhookCaches(webHook.getOrganizationId());
+      }
+    }
+  }
+
+  @Override
+  public void clearWebhookCaches(long organizationId) {
+    webHookStorage.refreshWebhookRegistration(organizationId);
+    evictDisabledRepositories(organizationId);
+    WebHook webHook = webHookStorage.getWebhookByOrganizationId(organizationId);
+    githubServiceConsumer.clearCaches(organizationId,
+                                      webHook == null ? null : webHook.getOrganizationName(),
+                                      webHook == null ? null : webHook.getToken());
+  }
+
+  @Override
+  public void clearRepositoriesStatusCache(long organizationId) {
+    evictDisabledRepositories(organizationId);
+  }
+
+  private void invalidateWebhookCaches(long organizationId) {
+    cacheInvalidationService.invalidate(WEBHOOK_CACHE, String.valueOf(organizationId));
+  }
+
+  private LongHashSet getDisabledRepositories(long organizationId) {
+    LongHashSet disabledRepositoryIds = disabledRepositories.get(organizationId);
+    if (disabledRepositoryIds == null) {
+      // Loaded outside of the map entry lock, since it accesses database and
+      // settings
+      long generation = disabledRepositoriesGeneration.get();
+      disabledRepositoryIds = loadDisabledRepositories(organizationId);
+      LongHashSet existingDisabledRepositoryIds = disabledRepositories.putIfAbsent(organizationId, disabledRepositoryIds);
+      if (existingDisabledRepositoryIds != null) {
+        disabledRepositoryIds = existingDisabledRepositoryIds;
+      } else if (generation != disabledRepositoriesGeneration.get()) {
+        // A status changed while loading, the loaded set may be stale
+        disabledRepositories.remove(organizationId, disabledRepositoryIds);
+      }
+    }
+    return disabledRepositoryIds;
+  }
+
+  private void evictDisabledRepositories(long organizationId) {
+    disabledRepositoriesGeneration.incrementAndGet();
+    disabledRepositories.remove(organizationId);
+  }
+
+  private LongHashSet loadDisabledRepositories(long organizationId) {
+    migrateDisabledRepositoriesSetting(organizationId);
+    List<Long> disabledRepositoryIdList = repositoryStatusStorage.getDisabledRepositoryIds(organizationId);
+    LongHashSet disabledRepositoryIds = new LongHashSet(disabledRepositoryIdList.size());
+    disabledRepositoryIdList.forEach(disabledRepositoryIds::add);
+    return disabledRepositoryIds;
+  }
+
+  /**
+   * Moves the disabled repositories, previously stored in a settings value per
+   * organization, to the repository status table
+   */
+  private void migrateDisabledRepositoriesSetting(long organizationId) {
+    SettingValue<?> settingValue =
+                                 settingService.get(GITHUB_WEBHOOK_CONTEXT, DISABLED_REPOS_SCOPE, String.valueOf(organizationId));
+    if (settingValue != null && settingValue.getValue() != null && StringUtils.isNotBlank(settingValue.getValue().toString())) {
+      if (!repositoryStatusStorage.hasRepositoryStatus(organizationId)) {
+        List<Long> disabledRepositoryIds = Arrays.stream(settingValue.getValue().toString().split(":"))
+                                                 .map(Long::parseLong)
+                                                 .toList();
+        repositoryStatusStorage.setRepositoriesEnabled(organizationId, disabledRepositoryIds, false);
       }
+      settingService.remove(GITHUB_WEBHOOK_CONTEXT, DISABLED_REPOS_SCOPE, String.valueOf(organizationId));
     }
   }
 }
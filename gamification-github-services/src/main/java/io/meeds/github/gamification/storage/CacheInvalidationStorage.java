@@ -0,0 +1,71 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage;
+
+import java.util.Date;
+import java.util.List;
+
+import io.meeds.github.gamification.dao.CacheInvalidationDAO;
+import io.meeds.github.gamification.entity.CacheInvalidationEntity;
+import io.meeds.github.gamification.model.CacheInvalidation;
+import io.meeds.github.gamification.storage.mapper.CacheInvalidationMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class CacheInvalidationStorage {
+
+  @Autowired
+  private CacheInvalidationDAO cacheInvalidationDAO;
+
+  public CacheInvalidation saveInvalidation(String cacheName, String cacheKey, String nodeId) {
+    CacheInvalidationEntity cacheInvalidationEntity = new CacheInvalidationEntity();
+    cacheInvalidationEntity.setCacheName(cacheName);
+    cacheInvalidationEntity.setCacheKey(cacheKey);
+    cacheInvalidationEntity.setNodeId(nodeId);
+    cacheInvalidationEntity.setCreatedDate(new Date());
+    return CacheInvalidationMapper.fromEntity(cacheInvalidationDAO.save(cacheInvalidationEntity));
+  }
+
+  /**
+   * @param afterId last processed invalidation identifier
+   * @param limit maximum number of invalidations to retrieve
+   * @return the invalidations recorded after the given one, ordered by
+   *         identifier
+   */
+  public List<CacheInvalidation> getInvalidations(long afterId, int limit) {
+    return cacheInvalidationDAO.findByIdGreaterThanOrderByIdAsc(afterId, Pageable.ofSize(limit))
+                               .stream()
+                               .map(CacheInvalidationMapper::fromEntity)
+                               .toList();
+  }
+
+  /**
+   * @return the identifier of the last recorded invalidation, 0 if none
+   */
+  public long getLastInvalidationId() {
+    CacheInvalidationEntity cacheInvalidationEntity = cacheInvalidationDAO.findFirstByOrderByIdDesc();
+    return cacheInvalidationEntity == null ? 0 : cacheInvalidationEntity.getId();
+  }
+
+  public int purgeInvalidations(Date before) {
+    return cacheInvalidationDAO.deleteByCreatedDateBefore(before);
+  }
+}
@@ -1,13 +1,17 @@
 package io.meeds.github.gamification.storage;
 
 import io.meeds.github.gamification.exception.GithubConnectionException;
+import io.meeds.github.gamification.exception.GithubRateLimitException;
 import io.meeds.github.gamification.model.RemoteOrganization;
 import io.meeds.github.gamification.model.RemoteRepository;
 import io.meeds.github.gamification.model.TokenStatus;
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.utils.TokenRateLimiter;
+import jakarta.annotation.PostConstruct;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpDelete;
@@ -22,10 +26,14 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.protocol.HTTP;
+import org.apache.http.util.EntityUtils;
 import org.exoplatform.commons.exception.ObjectNotFoundException;
 import org.exoplatform.commons.utils.CommonsUtils;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Repository;
 
 import javax.ws.rs.core.MediaType;
@@ -35,12 +43,70 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
+import static io.meeds.github.gamification.storage.cache.CacheConfig.ORGANIZATION_REPOS_CACHE;
+import static io.meeds.github.gamification.storage.cache.CacheConfig.REMOTE_ORGANIZATION_CACHE;
 import static io.meeds.github.gamification.utils.Utils.*;
 
 @Repository
 public class GithubConsumerStorage {
 
-  private HttpClient client;
+  private static final String               ETAG                 = "ETag";
+
+  private static final String               LAST_MODIFIED        = "Last-Modified";
+
+  private static final String               IF_NONE_MATCH        = "If-None-Match";
+
+  private static final String               IF_MODIFIED_SINCE    = "If-Modified-Since";
+
+  private static final String               RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+
+  private static final String               RATE_LIMIT_RESET     = "X-RateLimit-Reset";
+
+  private static final String               RETRY_AFTER          = "Retry-After";
+
+  /**
+   * Maximum total size, in bytes, of the organization and webhook GET
+   * responses kept with their validators to send conditional requests. GitHub
+   * doesn't count 304 responses against the token rate limit.
+   */
+  @Value("${io.meeds.gamification.github.api.conditionalCache.maxSize:1048576}")
+  private long                              conditionalCacheMaxSize;
+
+  /**
+   * Maximum number of background calls made at once, before pacing them over
+   * the remaining rate limit budget of the access token
+   */
+  @Value("${io.meeds.gamification.github.api.rateLimit.burst:10}")
+  private int                               rateLimitBurst;
+
+  /**
+   * Number of requests of each access token rate limit budget reserved to
+   * interactive calls, background calls are deferred beyond
+   */
+  @Value("${io.meeds.gamification.github.api.rateLimit.reservedRequests:500}")
+  private long                              rateLimitReservedRequests;
+
+  /**
+   * Cached GET responses by access token hash and URI, in least recently used
+   * order
+   */
+  private final Map<String, CachedResponse> cachedResponses      = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long                              cachedResponsesSize;
+
+  /**
+   * Rate limit budget of each access token, updated from the headers of every
+   * GitHub API response, so that the token status is retrieved without calling
+   * the rate_limit endpoint
+   */
+  private TokenRateLimiter                  rateLimiter;
+
+  private HttpClient                        client;
+
+  @PostConstruct
+  public void init() {
+    rateLimiter = new TokenRateLimiter(rateLimitBurst, rateLimitReservedRequests);
+  }
 
   @SuppressWarnings("unchecked")
   public WebHook createWebhook(String organizationName, String[] triggers, String accessToken) throws IllegalAccessException {
@@ -88,7 +154,7 @@ public class GithubConsumerStorage {
   }
 
   @SuppressWarnings("unchecked")
-  @Cacheable(value = "gamification.github.organizationRepos")
+  @Cacheable(value = ORGANIZATION_REPOS_CACHE, key = "#p0 + '#' + #p2 + '#' + #p3 + '#' + #p4")
   public List<RemoteRepository> retrieveOrganizationRepos(String organization,
                                                           String accessToken,
                                                           int page,
@@ -136,7 +202,7 @@ public class GithubConsumerStorage {
     URI uri = URI.create(GITHUB_API_URL + ORGANIZATIONS + organizationName);
     String response;
     try {
-      response = processGet(uri, accessToken);
+      response = processConditionalGet(uri, accessToken, false);
     } catch (GithubConnectionException e) {
       throw new IllegalStateException("Unable to retrieve GitHub organization info.", e);
     }
@@ -153,12 +219,12 @@ public class GithubConsumerStorage {
     return gitHubOrganization;
   }
 
-  @Cacheable(value = "gamification.github.remoteOrganization")
+  @Cacheable(value = REMOTE_ORGANIZATION_CACHE, key = "#p0")
   public RemoteOrganization retrieveRemoteOrganization(long organizationId, String accessToken) {
     URI uri = URI.create(GITHUB_API_URL + ORGANIZATIONS + organizationId);
     String response;
     try {
-      response = processGet(uri, accessToken);
+      response = processConditionalGet(uri, accessToken, false);
     } catch (GithubConnectionException e) {
       throw new IllegalStateException("Unable to retrieve GitHub organization info.", e);
     }
@@ -172,8 +238,12 @@ public class GithubConsumerStorage {
     return gitHubOrganization;
   }
 
-  @Cacheable(value = "gamification.github.tokenStatus")
   public TokenStatus checkGitHubTokenStatus(String token) {
+    Long remaining = rateLimiter.getRemaining(token);
+    Long reset = rateLimiter.getReset(token);
+    if (remaining != null && reset != null) {
+      return new TokenStatus(true, remaining, reset);
+    }
     URI uri = URI.create("https://api.github.com/rate_limit");
     String response;
     HttpClient httpClient = getHttpClient();
@@ -197,8 +267,12 @@ public class GithubConsumerStorage {
         if (StringUtils.isNotBlank(reset)) {
           tokenStatus.setReset(Long.parseLong(reset));
         }
+        if (tokenStatus.getRemaining() != null && tokenStatus.getReset() != null) {
+          rateLimiter.update(token, tokenStatus.getRemaining(), tokenStatus.getReset());
+        }
         return tokenStatus;
       } else if (httpResponse != null && httpResponse.getStatusLine().getStatusCode() == 401) {
+        rateLimiter.remove(token);
         return new TokenStatus(false, null, null);
       } else {
         return null;
@@ -208,28 +282,105 @@ public class GithubConsumerStorage {
     }
   }
 
-  public String forceUpdateWebhook(WebHook webHook) {
+  public String forceUpdateWebhook(WebHook webHook) throws GithubRateLimitException {
     long organizationId = webHook.getOrganizationId();
     URI uri = URI.create(GITHUB_API_URL + ORGANIZATIONS + organizationId + "/hooks/" + webHook.getWebhookId());
     try {
-      return processGet(uri, webHook.getToken());
+      return processConditionalGet(uri, webHook.getToken(), true);
+    } catch (GithubRateLimitException e) {
+      throw e;
     } catch (GithubConnectionException e) {
       throw new IllegalStateException("Unable to retrieve GitHub webhook info.", e);
     }
   }
 
+  @Caching(evict = {
+      @CacheEvict(value = ORGANIZATION_REPOS_CACHE, allEntries = true),
+      @CacheEvict(value = REMOTE_ORGANIZATION_CACHE, allEntries = true),
+  })
+  public void clearCaches() {
+    rateLimiter.clear();
+    synchronized (cachedResponses) {
+      cachedResponses.clear();
+      cachedResponsesSize = 0;
+    }
+  }
+
+  /**
+   * Clears the cached conditional responses and rate limit budget of an access
+   * token
+   *
+   * @param accessToken GitHub access token
+   */
+  public void clearCaches(String accessToken) {
+    rateLimiter.remove(accessToken);
+    String cacheKeyPrefix = sha256Hex(accessToken) + "#";
+    synchronized (cachedResponses) {
+      Iterator<Map.Entry<String, CachedResponse>> iterator = cachedResponses.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, CachedResponse> entry = iterator.next();
+        if (entry.getKey().startsWith(cacheKeyPrefix)) {
+          cachedResponsesSize -= entry.getValue().body().length;
+          iterator.remove();
+        }
+      }
+    }
+  }
+
   private String processGet(URI uri, String accessToken) throws GithubConnectionException {
+    acquireRateLimit(accessToken, false);
     HttpClient httpClient = getHttpClient();
     HttpGet request = new HttpGet(uri);
     try {
       request.setHeader(AUTHORIZATION, TOKEN + accessToken);
-      return processRequest(httpClient, request);
+      return processRequest(httpClient, request, accessToken);
+    } catch (IOException e) {
+      throw new GithubConnectionException(GITHUB_CONNECTION_ERROR, e);
+    }
+  }
+
+  /**
+   * Sends a GET request with the validators of the previous response, if any,
+   * and reuses the previous response body when GitHub answers 304
+   */
+  private String processConditionalGet(URI uri, String accessToken, boolean background) throws GithubConnectionException {
+    acquireRateLimit(accessToken, background);
+    HttpClient httpClient = getHttpClient();
+    HttpGet request = new HttpGet(uri);
+    // The access token isn't kept in memory in clear text
+    String cacheKey = sha256Hex(accessToken) + "#" + uri;
+    CachedResponse cachedResponse = getCachedResponse(cacheKey);
+    try {
+      request.setHeader(AUTHORIZATION, TOKEN + accessToken);
+      if (cachedResponse != null) {
+        if (cachedResponse.etag() != null) {
+          request.setHeader(IF_NONE_MATCH, cachedResponse.etag());
+        }
+        if (cachedResponse.lastModified() != null) {
+          request.setHeader(IF_MODIFIED_SINCE, cachedResponse.lastModified());
+        }
+      }
+      HttpResponse response = httpClient.execute(request);
+      trackRateLimit(accessToken, response);
+      int statusCode = response == null ? 0 : response.getStatusLine().getStatusCode();
+      if (statusCode == HttpStatus.SC_NOT_MODIFIED && cachedResponse != null) {
+        EntityUtils.consumeQuietly(response.getEntity());
+        return new String(cachedResponse.body(), StandardCharsets.UTF_8);
+      } else if (statusCode == HttpStatus.SC_OK) {
+        String body = processSuccessResponse(response);
+        cacheResponse(cacheKey, response, body);
+        return body;
+      } else {
+        removeCachedResponse(cacheKey);
+        return processResponse(response);
+      }
     } catch (IOException e) {
       throw new GithubConnectionException(GITHUB_CONNECTION_ERROR, e);
     }
   }
 
   private String processPost(URI uri, String jsonString, String accessToken) throws GithubConnectionException {
+    acquireRateLimit(accessToken, false);
     HttpClient httpClient = getHttpClient();
     HttpPost request = new HttpPost(uri);
     StringEntity entity = new StringEntity(jsonString, ContentType.APPLICATION_JSON);
@@ -237,25 +388,33 @@ public class GithubConsumerStorage {
       request.setHeader(HTTP.CONTENT_TYPE, MediaType.APPLICATION_JSON);
       request.setHeader(AUTHORIZATION, TOKEN + accessToken);
       request.setEntity(entity);
-      return processRequest(httpClient, request);
+      return processRequest(httpClient, request, accessToken);
     } catch (IOException e) {
       throw new GithubConnectionException(GITHUB_CONNECTION_ERROR, e);
     }
   }
 
   private String processDelete(URI uri, String accessToken) throws GithubConnectionException {
+    acquireRateLimit(accessToken, false);
     HttpClient httpClient = getHttpClient();
     HttpDelete request = new HttpDelete(uri);
     try {
       request.setHeader(AUTHORIZATION, TOKEN + accessToken);
-      return processRequest(httpClient, request);
+      return processRequest(httpClient, request, accessToken);
     } catch (IOException e) {
       throw new GithubConnectionException(GITHUB_CONNECTION_ERROR, e);
     }
   }
 
-  private String processRequest(HttpClient httpClient, HttpRequestBase request) throws IOException, GithubConnectionException {
+  private String processRequest(HttpClient httpClient,
+                                HttpRequestBase request,
+                                String accessToken) throws IOException, GithubConnectionException {
     HttpResponse response = httpClient.execute(request);
+    trackRateLimit(accessToken, response);
+    return processResponse(response);
+  }
+
+  private String processResponse(HttpResponse response) throws IOException, GithubConnectionException {
     boolean isSuccess = response != null
         && (response.getStatusLine().getStatusCode() >= 200 && response.getStatusLine().getStatusCode() < 300);
     if (isSuccess) {
@@ -299,6 +458,81 @@ public class GithubConsumerStorage {
     }
   }
 
+  private void acquireRateLimit(String accessToken, boolean background) throws GithubRateLimitException {
+    if (!rateLimiter.acquire(accessToken, background)) {
+      throw new GithubRateLimitException("github.rateLimitExceeded");
+    }
+  }
+
+  private void trackRateLimit(String accessToken, HttpResponse response) {
+    if (response == null || accessToken == null) {
+      return;
+    }
+    int statusCode = response.getStatusLine().getStatusCode();
+    if (statusCode == HttpStatus.SC_UNAUTHORIZED) {
+      rateLimiter.remove(accessToken);
+      return;
+    }
+    boolean success = (statusCode >= 200 && statusCode < 300) || statusCode == HttpStatus.SC_NOT_MODIFIED;
+    if (!success && rateLimiter.getRemaining(accessToken) == null) {
+      // The tracked budget tells that the token is valid, an error response,
+      // such as a forbidden access, doesn't prove it
+      return;
+    }
+    Header retryAfterHeader = response.getFirstHeader(RETRY_AFTER);
+    if (retryAfterHeader != null && StringUtils.isNumeric(retryAfterHeader.getValue())) {
+      // Secondary rate limit: defer background calls only, the primary budget
+      // of interactive calls is still tracked from the response headers
+      long retryTime = System.currentTimeMillis() / 1000 + Long.parseLong(retryAfterHeader.getValue());
+      rateLimiter.updateSecondaryLimit(accessToken, retryTime);
+    }
+    Header remainingHeader = response.getFirstHeader(RATE_LIMIT_REMAINING);
+    Header resetHeader = response.getFirstHeader(RATE_LIMIT_RESET);
+    if (remainingHeader != null && resetHeader != null && StringUtils.isNumeric(remainingHeader.getValue())
+        && StringUtils.isNumeric(resetHeader.getValue())) {
+      rateLimiter.update(accessToken, Long.parseLong(remainingHeader.getValue()), Long.parseLong(resetHeader.getValue()));
+    }
+  }
+
+  private CachedResponse getCachedResponse(String cacheKey) {
+    synchronized (cachedResponses) {
+      return cachedResponses.get(cacheKey);
+    }
+  }
+
+  private void cacheResponse(String cacheKey, HttpResponse response, String body) {
+    Header etagHeader = response.getFirstHeader(ETAG);
+    Header lastModifiedHeader = response.getFirstHeader(LAST_MODIFIED);
+    byte[] bodyBytes = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+    if (bodyBytes == null || bodyBytes.length > conditionalCacheMaxSize || (etagHeader == null && lastModifiedHeader == null)) {
+      removeCachedResponse(cacheKey);
+      return;
+    }
+    CachedResponse cachedResponse = new CachedResponse(etagHeader == null ? null : etagHeader.getValue(),
+                                                       lastModifiedHeader == null ? null : lastModifiedHeader.getValue(),
+                                                       bodyBytes);
+    synchronized (cachedResponses) {
+      CachedResponse previousResponse = cachedResponses.put(cacheKey, cachedResponse);
+      cachedResponsesSize += bodyBytes.length - (previousResponse == null ? 0 : previousResponse.body().length);
+      // Evict the least recently used responses, the added one being the most
+      // recently used
+      Iterator<CachedResponse> iterator = cachedResponses.values().iterator();
+      while (cachedResponsesSize > conditionalCacheMaxSize && iterator.hasNext()) {
+        cachedResponsesSize -= iterator.next().body().length;
+        iterator.remove();
+      }
+    }
+  }
+
+  private void removeCachedResponse(String cacheKey) {
+    synchronized (cachedResponses) {
+      CachedResponse previousResponse = cachedResponses.remove(cacheKey);
+      if (previousResponse != null) {
+        cachedResponsesSize -= previousResponse.body().length;
+      }
+    }
+  }
+
   private HttpClient getHttpClient() {
     if (client == null) {
       HttpClientConnectionManager clientConnectionManager = getClientConnectionManager();
@@ -315,4 +549,7 @@ public class GithubConsumerStorage {
     connectionManager.setDefaultMaxPerRoute(10);
     return connectionManager;
   }
+
+  private record CachedResponse(String etag, String lastModified, byte[] body) {
+  }
 }
@@ -0,0 +1,88 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.meeds.github.gamification.dao.RepositoryStatusDAO;
+import io.meeds.github.gamification.entity.RepositoryStatusEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class RepositoryStatusStorage {
+
+  private static final int    QUERY_CHUNK_SIZE = 500;
+
+  @Autowired
+  private RepositoryStatusDAO repositoryStatusDAO;
+
+  public List<Long> getDisabledRepositoryIds(long organizationId) {
+    return repositoryStatusDAO.findDisabledRepositoryIds(organizationId);
+  }
+
+  public boolean hasRepositoryStatus(long organizationId) {
+    return repositoryStatusDAO.existsByOrganizationId(organizationId);
+  }
+
+  /**
+   * Enables or disables a list of repositories in a single transaction: the
+   * existing statuses are updated by one bulk query per chunk and only the
+   * missing ones are inserted.
+   *
+   * @param organizationId gitHub organization remote Id
+   * @param repositoryIds gitHub repositories remote Ids
+   * @param enabled true to enable, else false
+   */
+  @Transactional
+  public void setRepositoriesEnabled(long organizationId, Collection<Long> repositoryIds, boolean enabled) {
+    List<Long> distinctRepositoryIds = repositoryIds.stream().distinct().toList();
+    Date updatedDate = new Date();
+    // Split in chunks to not exceed the IN clause size limits of databases
+    for (int i = 0; i < distinctRepositoryIds.size(); i += QUERY_CHUNK_SIZE) {
+      List<Long> chunk = distinctRepositoryIds.subList(i, Math.min(i + QUERY_CHUNK_SIZE, distinctRepositoryIds.size()));
+      setRepositoriesEnabled(organizationId, chunk, enabled, updatedDate);
+    }
+  }
+
+  private void setRepositoriesEnabled(long organizationId, List<Long> repositoryIds, boolean enabled, Date updatedDate) {
+    Set<Long> missingRepositoryIds = new HashSet<>(repositoryIds);
+    List<Long> existingRepositoryIds = repositoryStatusDAO.findExistingRepositoryIds(organizationId, repositoryIds);
+    if (!existingRepositoryIds.isEmpty()) {
+      repositoryStatusDAO.updateStatus(organizationId, existingRepositoryIds, enabled, updatedDate);
+      existingRepositoryIds.forEach(missingRepositoryIds::remove);
+    }
+    if (!missingRepositoryIds.isEmpty()) {
+      List<RepositoryStatusEntity> entities = missingRepositoryIds.stream().map(repositoryId -> {
+        RepositoryStatusEntity repositoryStatusEntity = new RepositoryStatusEntity();
+        repositoryStatusEntity.setOrganizationId(organizationId);
+        repositoryStatusEntity.setRepositoryId(repositoryId);
+        repositoryStatusEntity.setEnabled(enabled);
+        repositoryStatusEntity.setUpdatedDate(updatedDate);
+        return repositoryStatusEntity;
+      }).toList();
+      repositoryStatusDAO.saveAll(entities);
+    }
+  }
+}
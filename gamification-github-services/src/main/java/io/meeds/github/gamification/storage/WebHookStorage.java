@@ -17,11 +17,17 @@
  */
 package io.meeds.github.gamification.storage;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import io.meeds.github.gamification.dao.WebHookDAO;
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.model.WebhookRegistration;
+import io.meeds.github.gamification.utils.Utils;
 import io.meeds.github.gamification.storage.mapper.WebHookMapper;
 import org.exoplatform.commons.ObjectAlreadyExistsException;
 import io.meeds.github.gamification.entity.WebhookEntity;
@@ -29,12 +35,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Repository
 public class WebHookStorage {
 
   @Autowired
-  private WebHookDAO webHookDAO;
+  private WebHookDAO                                 webHookDAO;
+
+  /**
+   * Webhook registrations by organization id, loaded at once for all
+   * webhooks, so that deliveries are checked without database access nor
+   * secret decoding
+   */
+  private volatile Map<Long, WebhookRegistration> webhookRegistrations; // NOSONAR
 
   public WebHook saveWebHook(WebHook webHook) throws ObjectAlreadyExistsException {
     WebHook existsWebHook = getWebhookByOrganizationId(webHook.getOrganizationId());
@@ -45,6 +60,7 @@ public class WebHookStorage {
       webhookEntity.setRefreshDate(new Date());
       webhookEntity.setEnabled(true);
       webhookEntity = webHookDAO.save(webhookEntity);
+      clearWebhookRegistrationsAfterCommit();
       return WebHookMapper.fromEntity(webhookEntity);
     } else {
       throw new ObjectAlreadyExistsException(existsWebHook);
@@ -61,7 +77,9 @@ public class WebHookStorage {
       webhookEntity.setTriggers(webHook.getTriggers());
     }
     webhookEntity.setUpdatedDate(new Date());
-    return WebHookMapper.fromEntity(webHookDAO.save(webhookEntity));
+    webhookEntity = webHookDAO.save(webhookEntity);
+    clearWebhookRegistrationsAfterCommit();
+    return WebHookMapper.fromEntity(webhookEntity);
   }
 
   public WebHook updateWebHookAccessToken(long webhookId, String accessToken) {
@@ -70,7 +88,9 @@ public class WebHookStorage {
       return null;
     }
     webhookEntity.setToken(accessToken);
-    return WebHookMapper.fromEntity(webHookDAO.save(webhookEntity));
+    webhookEntity = webHookDAO.save(webhookEntity);
+    clearWebhookRegistrationsAfterCommit();
+    return WebHookMapper.fromEntity(webhookEntity);
   }
 
   public WebHook getWebHookById(Long id) {
@@ -100,7 +120,81 @@ public class WebHookStorage {
     WebhookEntity webhookEntity = webHookDAO.findWebhookEntityByOrganizationId(organizationId);
     if (webhookEntity != null) {
       webHookDAO.delete(webhookEntity);
+      clearWebhookRegistrationsAfterCommit();
     }
     return WebHookMapper.fromEntity(webhookEntity);
   }
+
+  /**
+   * @param organizationId gitHub organization remote id
+   * @return the cached {@link WebhookRegistration} of the organization, null
+   *         if no webhook is registered for it
+   */
+  public WebhookRegistration getWebhookRegistration(long organizationId) {
+    Map<Long, WebhookRegistration> registrations = webhookRegistrations;
+    if (registrations == null) {
+      registrations = loadWebhookRegistrations();
+    }
+    return registrations.get(organizationId);
+  }
+
+  private synchronized Map<Long, WebhookRegistration> loadWebhookRegistrations() {
+    if (webhookRegistrations == null) {
+      webhookRegistrations = webHookDAO.findAll()
+                                       .stream()
+                                       .collect(Collectors.toUnmodifiableMap(WebhookEntity::getOrganizationId,
+                                                                             this::toRegistration,
+                                                                             (r1, r2) -> r1));
+    }
+    return webhookRegistrations;
+  }
+
+  /**
+   * Reloads the webhook registration of a single organization, keeping the
+   * other ones loaded
+   *
+   * @param organizationId gitHub organization remote id
+   */
+  public synchronized void refreshWebhookRegistration(long organizationId) {
+    if (webhookRegistrations == null) {
+      // Not loaded yet, the registration will be loaded with the other ones
+      return;
+    }
+    Map<Long, WebhookRegistration> registrations = new HashMap<>(webhookRegistrations);
+    WebhookEntity webhookEntity = webHookDAO.findWebhookEntityByOrganizationId(organizationId);
+    if (webhookEntity == null) {
+      registrations.remove(organizationId);
+    } else {
+      registrations.put(organizationId, toRegistration(webhookEntity));
+    }
+    webhookRegistrations = Collections.unmodifiableMap(registrations);
+  }
+
+  public synchronized void clearWebhookRegistrations() {
+    webhookRegistrations = null;
+  }
+
+  /**
+   * Clears the webhook registrations once the current transaction is
+   * committed, so that they aren't reloaded, by a concurrent delivery, from
+   * the state preceding the change
+   */
+  private void clearWebhookRegistrationsAfterCommit() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          clearWebhookRegistrations();
+        }
+      });
+    } else {
+      clearWebhookRegistrations();
+    }
+  }
+
+  private WebhookRegistration toRegistration(WebhookEntity webhookEntity) {
+    return new WebhookRegistration(webhookEntity.getOrganizationId(),
+                                   Utils.decode(webhookEntity.getSecret()),
+                                   !Boolean.FALSE.equals(webhookEntity.getEnabled()));
+  }
 }
@@ -0,0 +1,225 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import io.meeds.github.gamification.dao.WebhookDeliveryDAO;
+import io.meeds.github.gamification.entity.WebhookDeliveryEntity;
+import io.meeds.github.gamification.model.WebhookDelivery;
+import io.meeds.github.gamification.model.WebhookDeliveryStatus;
+import io.meeds.github.gamification.storage.mapper.WebhookDeliveryMapper;
+import org.exoplatform.commons.ObjectAlreadyExistsException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class WebhookDeliveryStorage {
+
+  private static final int   QUERY_CHUNK_SIZE = 500;
+
+  @Autowired
+  private WebhookDeliveryDAO webhookDeliveryDAO;
+
+  /**
+   * Persists a received delivery in queued status, leased by the node which
+   * received it until the given lease expiry date. A redelivery of a delivery
+   * which processing failed is queued again, with its attempts reset.
+   *
+   * @param deliveryId GitHub delivery GUID, sent in 'X-GitHub-Delivery' header
+   * @param event GitHub event name
+   * @param signature delivery signature
+   * @param payload delivery payload raw bytes, as received
+   * @param nodeId identifier of the node queuing the delivery
+   * @param leaseExpiryDate date after which the delivery can be queued again by
+   *          any node
+   * @return persisted {@link WebhookDelivery}
+   * @throws ObjectAlreadyExistsException when a delivery with the same GitHub
+   *           delivery GUID was already received, by any node of the cluster,
+   *           and neither failed nor was purged yet
+   */
+  public WebhookDelivery saveDelivery(String deliveryId,
+                                      String event,
+                                      String signature,
+                                      byte[] payload,
+                                      String nodeId,
+                                      Date leaseExpiryDate) throws ObjectAlreadyExistsException {
+    Date now = new Date();
+    WebhookDeliveryEntity existingDeliveryEntity = webhookDeliveryDAO.findByDeliveryId(deliveryId);
+    if (existingDeliveryEntity != null) {
+      return requeueFailedDelivery(existingDeliveryEntity, nodeId, leaseExpiryDate, now);
+    }
+    WebhookDeliveryEntity webhookDeliveryEntity = new WebhookDeliveryEntity();
+    webhookDeliveryEntity.setDeliveryId(deliveryId);
+    webhookDeliveryEntity.setEvent(event);
+    webhookDeliveryEntity.setSignature(signature);
+    webhookDeliveryEntity.setPayload(payload);
+    webhookDeliveryEntity.setStatus(WebhookDeliveryStatus.QUEUED);
+    webhookDeliveryEntity.setNodeId(nodeId);
+    webhookDeliveryEntity.setLeaseExpiryDate(leaseExpiryDate);
+    webhookDeliveryEntity.setCreatedDate(now);
+    webhookDeliveryEntity.setUpdatedDate(now);
+    try {
+      return WebhookDeliveryMapper.fromEntity(webhookDeliveryDAO.save(webhookDeliveryEntity));
+    } catch (DataIntegrityViolationException e) {
+      // Same delivery saved concurrently by another node
+      throw new ObjectAlreadyExistsException(deliveryId);
+    }
+  }
+
+  private WebhookDelivery requeueFailedDelivery(WebhookDeliveryEntity webhookDeliveryEntity,
+                                                String nodeId,
+                                                Date leaseExpiryDate,
+                                                Date now) throws ObjectAlreadyExistsException {
+    if (webhookDeliveryDAO.requeue(webhookDeliveryEntity.getId(),
+                                   WebhookDeliveryStatus.FAILED,
+                                   WebhookDeliveryStatus.QUEUED,
+                                   nodeId,
+                                   leaseExpiryDate,
+                                   now) == 0) {
+      // Not failed, or queued again concurrently by another node
+      throw new ObjectAlreadyExistsException(webhookDeliveryEntity.getDeliveryId());
+    }
+    webhookDeliveryEntity.setStatus(WebhookDeliveryStatus.QUEUED);
+    webhookDeliveryEntity.setAttempts(0);
+    webhookDeliveryEntity.setNodeId(nodeId);
+    webhookDeliveryEntity.setLeaseExpiryDate(leaseExpiryDate);
+    webhookDeliveryEntity.setUpdatedDate(now);
+    return WebhookDeliveryMapper.fromEntity(webhookDeliveryEntity);
+  }
+
+  /**
+   * Switches a queued delivery to processing status. Only the node holding
+   * the delivery lease can claim it, so that a delivery queued again by
+   * another node after the lease expiry is processed only once.
+   *
+   * @param deliveryId delivery technical identifier
+   * @param nodeId identifier of the node claiming the delivery
+   * @return true if the delivery was claimed by the current caller
+   */
+  public boolean claimDelivery(long deliveryId, String nodeId) {
+    return webhookDeliveryDAO.updateStatus(deliveryId,
+                                           nodeId,
+                                           WebhookDeliveryStatus.QUEUED,
+                                           WebhookDeliveryStatus.PROCESSING,
+                                           new Date()) > 0;
+  }
+
+  public void completeDelivery(long deliveryId, boolean success) {
+    webhookDeliveryDAO.updateStatus(deliveryId,
+                                    WebhookDeliveryStatus.PROCESSING,
+                                    success ? WebhookDeliveryStatus.DONE : WebhookDeliveryStatus.FAILED,
+                                    new Date());
+  }
+
+  /**
+   * Puts back in pending status a delivery which processing failed, so that
+   * it's replayed by any node once the retry date is reached
+   *
+   * @param deliveryId delivery technical identifier
+   * @param attempts number of failed processing attempts
+   * @param retryDate date before which the delivery isn't replayed
+   */
+  public void retryDelivery(long deliveryId, int attempts, Date retryDate) {
+    webhookDeliveryDAO.updateAttempts(deliveryId,
+                                      WebhookDeliveryStatus.PROCESSING,
+                                      WebhookDeliveryStatus.PENDING,
+                                      attempts,
+                                      retryDate,
+                                      new Date());
+  }
+
+  /**
+   * Retrieves the pending deliveries and the queued ones which lease has
+   * expired, that is, deliveries which aren't queued by any node
+   *
+   * @param now current date
+   * @param limit maximum number of deliveries to retrieve
+   * @return {@link List} of {@link WebhookDelivery} ordered by reception
+   */
+  public List<WebhookDelivery> getPendingDeliveries(Date now, int limit) {
+    return webhookDeliveryDAO.findByLeaseExpired(List.of(WebhookDeliveryStatus.PENDING, WebhookDeliveryStatus.QUEUED),
+                                                 now,
+                                                 Pageable.ofSize(limit))
+                             .stream()
+                             .map(WebhookDeliveryMapper::fromEntity)
+                             .toList();
+  }
+
+  /**
+   * Leases a pending delivery, or a queued one which lease has expired, to
+   * the given node. Only one node, in the whole cluster, can lease a given
+   * delivery.
+   *
+   * @param deliveryId delivery technical identifier
+   * @param nodeId identifier of the node queuing the delivery
+   * @param leaseExpiryDate date after which the delivery can be queued again by
+   *          any node
+   * @return true if the lease was acquired by the current caller
+   */
+  public boolean leaseDelivery(long deliveryId, String nodeId, Date leaseExpiryDate) {
+    return webhookDeliveryDAO.acquireLease(deliveryId,
+                                           List.of(WebhookDeliveryStatus.PENDING, WebhookDeliveryStatus.QUEUED),
+                                           WebhookDeliveryStatus.QUEUED,
+                                           nodeId,
+                                           leaseExpiryDate,
+                                           new Date()) > 0;
+  }
+
+  /**
+   * Extends the lease of deliveries which are still waiting in the node
+   * in-memory queue
+   *
+   * @param deliveryIds delivery technical identifiers
+   * @param nodeId identifier of the node holding the lease
+   * @param leaseExpiryDate new lease expiry date
+   */
+  public void renewLeases(Collection<Long> deliveryIds, String nodeId, Date leaseExpiryDate) {
+    List<Long> ids = List.copyOf(deliveryIds);
+    // Split in chunks to not exceed the IN clause size limits of databases
+    for (int i = 0; i < ids.size(); i += QUERY_CHUNK_SIZE) {
+      webhookDeliveryDAO.renewLeases(ids.subList(i, Math.min(i + QUERY_CHUNK_SIZE, ids.size())),
+                                     WebhookDeliveryStatus.QUEUED,
+                                     nodeId,
+                                     leaseExpiryDate);
+    }
+  }
+
+  /**
+   * Puts back in pending status the deliveries which processing has been
+   * interrupted, by a server crash or a redeploy, before the given date
+   *
+   * @param before processing start date limit
+   * @return released deliveries count
+   */
+  public int releaseStaleDeliveries(Date before) {
+    return webhookDeliveryDAO.releaseBefore(WebhookDeliveryStatus.PROCESSING,
+                                            WebhookDeliveryStatus.PENDING,
+                                            before,
+                                            new Date());
+  }
+
+  public int purgeDeliveries(Date before) {
+    return webhookDeliveryDAO.deleteByStatusBefore(List.of(WebhookDeliveryStatus.DONE, WebhookDeliveryStatus.FAILED), before);
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import io.meeds.github.gamification.model.CacheStatistics;
+
+/**
+ * A local Spring {@link org.springframework.cache.Cache} bounded in size,
+ * evicting the least recently used entries, and in time, expiring entries a
+ * fixed delay after their write. Values loaded through
+ * {@link #get(Object, Callable)} are loaded once per key, concurrent callers
+ * waiting for the loaded value. It counts hits, misses and evictions to
+ * monitor its efficiency.
+ */
+public class BoundedCache extends AbstractValueAdaptingCache {
+
+  private final String                     name;
+
+  private final int                        maxSize;
+
+  private final long                       timeToLive;
+
+  private final Map<Object, CacheEntry>    entries;
+
+  /**
+   * Locks of the keys being loaded, a {@link ReentrantLock} doesn't pin the
+   * carrier of a virtual thread waiting for a loading GitHub API call
+   */
+  private final Map<Object, ReentrantLock> loadingLocks  = new ConcurrentHashMap<>();
+
+  private final AtomicLong                 hitCount      = new AtomicLong();
+
+  private final AtomicLong                 missCount     = new AtomicLong();
+
+  private final AtomicLong                 evictionCount = new AtomicLong();
+
+  /**
+   * @param name cache name
+   * @param maxSize maximum number of entries
+   * @param timeToLive delay, in seconds, after which an entry expires
+   */
+  public BoundedCache(String name, int maxSize, long timeToLive) {
+    super(true);
+    this.name = name;
+    this.maxSize = maxSize;
+    this.timeToLive = timeToLive;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      private static final long serialVersionUID = -1542073592184605364L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+        if (size() > BoundedCache.this.maxSize) {
+          evictionCount.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return entries;
+  }
+
+  @Override
+  protected Object lookup(Object key) {
+    CacheEntry entry = getEntry(key);
+    if (entry == null) {
+      missCount.incrementAndGet();
+      return null;
+    } else {
+      hitCount.incrementAndGet();
+      return entry.value();
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    ValueWrapper valueWrapper = get(key);
+    if (valueWrapper != null) {
+      return (T) valueWrapper.get();
+    }
+    ReentrantLock loadingLock = loadingLocks.computeIfAbsent(key, k -> new ReentrantLock());
+    loadingLock.lock();
+    try {
+      // Loaded meanwhile by a concurrent caller
+      CacheEntry entry = getEntry(key);
+      if (entry != null) {
+        return (T) fromStoreValue(entry.value());
+      }
+      T value;
+      try {
+        value = valueLoader.call();
+      } catch (Exception e) {
+        throw new ValueRetrievalException(key, valueLoader, e);
+      }
+      put(key, value);
+      return value;
+    } finally {
+      loadingLock.unlock();
+      // Callers already waiting for this lock will find the loaded value
+      loadingLocks.remove(key, loadingLock);
+    }
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    CacheEntry entry = new CacheEntry(toStoreValue(value), System.currentTimeMillis() + timeToLive * 1000);
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+
+  @Override
+  public void evict(Object key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  /**
+   * Evicts the entries which key matches a filter, typically the entries of a
+   * given organization
+   *
+   * @param keyFilter evicted entries keys filter
+   */
+  public void evictIf(Predicate<Object> keyFilter) {
+    synchronized (entries) {
+      entries.keySet().removeIf(keyFilter);
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public CacheStatistics getStatistics() {
+    int size;
+    synchronized (entries) {
+      size = entries.size();
+    }
+    long hits = hitCount.get();
+    long misses = missCount.get();
+    double hitRate = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    return new CacheStatistics(name, maxSize, timeToLive, size, hits, misses, evictionCount.get(), hitRate);
+  }
+
+  private CacheEntry getEntry(Object key) {
+    synchronized (entries) {
+      CacheEntry entry = entries.get(key);
+      if (entry != null && entry.expiryTime() <= System.currentTimeMillis()) {
+        entries.remove(key);
+        evictionCount.incrementAndGet();
+        entry = null;
+      }
+      return entry;
+    }
+  }
+
+  private record CacheEntry(Object value, long expiryTime) {
+  }
+}
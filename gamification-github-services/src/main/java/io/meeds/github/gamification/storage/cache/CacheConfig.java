@@ -0,0 +1,70 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage.cache;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Defines the caches of GitHub API responses, each one bounded in size and
+ * time
+ */
+@Configuration
+public class CacheConfig {
+
+  public static final String ORGANIZATION_REPOS_CACHE  = "gamification.github.organizationRepos";
+
+  public static final String REMOTE_ORGANIZATION_CACHE = "gamification.github.remoteOrganization";
+
+  /**
+   * Repositories pages change often and each keyword and page combination is
+   * cached, thus a large size and a short time to live
+   */
+  @Value("${io.meeds.gamification.github.cache.organizationRepos.maxSize:500}")
+  private int                organizationReposMaxSize;
+
+  @Value("${io.meeds.gamification.github.cache.organizationRepos.timeToLive:600}")
+  private long               organizationReposTimeToLive;
+
+  /**
+   * Organizations title, description and avatar rarely change
+   */
+  @Value("${io.meeds.gamification.github.cache.remoteOrganization.maxSize:100}")
+  private int                remoteOrganizationMaxSize;
+
+  @Value("${io.meeds.gamification.github.cache.remoteOrganization.timeToLive:3600}")
+  private long               remoteOrganizationTimeToLive;
+
+  @Bean
+  public CacheManager cacheManager() {
+    SimpleCacheManager cacheManager = new SimpleCacheManager();
+    cacheManager.setCaches(List.of(new BoundedCache(ORGANIZATION_REPOS_CACHE,
+                                                    organizationReposMaxSize,
+                                                    organizationReposTimeToLive),
+                                   new BoundedCache(REMOTE_ORGANIZATION_CACHE,
+                                                    remoteOrganizationMaxSize,
+                                                    remoteOrganizationTimeToLive)));
+    return cacheManager;
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage.mapper;
+
+import io.meeds.github.gamification.entity.CacheInvalidationEntity;
+import io.meeds.github.gamification.model.CacheInvalidation;
+
+public class CacheInvalidationMapper {
+
+  private CacheInvalidationMapper() {
+    // Class with static methods
+  }
+
+  public static CacheInvalidation fromEntity(CacheInvalidationEntity cacheInvalidationEntity) {
+    if (cacheInvalidationEntity == null) {
+      return null;
+    }
+    return new CacheInvalidation(cacheInvalidationEntity.getId(),
+                                 cacheInvalidationEntity.getCacheName(),
+                                 cacheInvalidationEntity.getCacheKey(),
+                                 cacheInvalidationEntity.getNodeId(),
+                                 cacheInvalidationEntity.getCreatedDate());
+  }
+}
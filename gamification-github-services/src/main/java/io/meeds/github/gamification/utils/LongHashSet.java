@@ -0,0 +1,192 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.utils;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * A set of primitive long values using open addressing with linear probing, so
+ * that lookups don't box values nor allocate. It isn't thread safe: shared
+ * instances must be treated as read only snapshots and updated by copy.
+ */
+public class LongHashSet {
+
+  private static final int   DEFAULT_CAPACITY = 16;
+
+  private static final float LOAD_FACTOR      = 0.5f;
+
+  /** Value used to mark empty slots, stored apart using containsEmptyValue */
+  private static final long  EMPTY            = 0L;
+
+  private long[]             values;
+
+  private int                size;
+
+  private boolean            containsEmptyValue;
+
+  public LongHashSet() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public LongHashSet(int expectedSize) {
+    values = new long[tableSize(expectedSize)];
+  }
+
+  private LongHashSet(LongHashSet set) {
+    this.values = set.values.clone();
+    this.size = set.size;
+    this.containsEmptyValue = set.containsEmptyValue;
+  }
+
+  public boolean contains(long value) {
+    if (value == EMPTY) {
+      return containsEmptyValue;
+    }
+    int mask = values.length - 1;
+    int index = hash(value) & mask;
+    long current;
+    while ((current = values[index]) != EMPTY) {
+      if (current == value) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  public boolean add(long value) {
+    if (value == EMPTY) {
+      boolean added = !containsEmptyValue;
+      containsEmptyValue = true;
+      return added;
+    }
+    if ((size + 1) > values.length * LOAD_FACTOR) {
+      rehash(values.length * 2);
+    }
+    int mask = values.length - 1;
+    int index = hash(value) & mask;
+    long current;
+    while ((current = values[index]) != EMPTY) {
+      if (current == value) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    values[index] = value;
+    size++;
+    return true;
+  }
+
+  public boolean remove(long value) {
+    if (value == EMPTY) {
+      boolean removed = containsEmptyValue;
+      containsEmptyValue = false;
+      return removed;
+    }
+    int mask = values.length - 1;
+    int index = hash(value) & mask;
+    long current;
+    while ((current = values[index]) != EMPTY) {
+      if (current == value) {
+        values[index] = EMPTY;
+        size--;
+        shiftBack(index);
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  public int size() {
+    return size + (containsEmptyValue ? 1 : 0);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public long[] toArray() {
+    long[] result = new long[size()];
+    int i = 0;
+    if (containsEmptyValue) {
+      result[i++] = EMPTY;
+    }
+    for (long value : values) {
+      if (value != EMPTY) {
+        result[i++] = value;
+      }
+    }
+    return result;
+  }
+
+  public LongHashSet copy() {
+    return new LongHashSet(this);
+  }
+
+  public String join(String delimiter) {
+    return Arrays.stream(toArray()).mapToObj(String::valueOf).collect(Collectors.joining(delimiter));
+  }
+
+  /**
+   * Re-inserts the entries following a removed slot, so that probing
+   * sequences aren't broken by the new empty slot
+   */
+  private void shiftBack(int removedIndex) {
+    int mask = values.length - 1;
+    int emptyIndex = removedIndex;
+    int index = (removedIndex + 1) & mask;
+    long current;
+    while ((current = values[index]) != EMPTY) {
+      int idealIndex = hash(current) & mask;
+      // Move the entry if its ideal slot isn't cyclically in ]emptyIndex, index]
+      if (((index - idealIndex) & mask) >= ((index - emptyIndex) & mask)) {
+        values[emptyIndex] = current;
+        values[index] = EMPTY;
+        emptyIndex = index;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private void rehash(int newLength) {
+    long[] oldValues = values;
+    values = new long[newLength];
+    int mask = newLength - 1;
+    for (long value : oldValues) {
+      if (value != EMPTY) {
+        int index = hash(value) & mask;
+        while (values[index] != EMPTY) {
+          index = (index + 1) & mask;
+        }
+        values[index] = value;
+      }
+    }
+  }
+
+  private static int tableSize(int expectedSize) {
+    int capacity = Math.max(DEFAULT_CAPACITY, (int) Math.ceil(expectedSize / LOAD_FACTOR));
+    return Integer.highestOneBit(capacity - 1) << 1;
+  }
+
+  private static int hash(long value) {
+    long h = value * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
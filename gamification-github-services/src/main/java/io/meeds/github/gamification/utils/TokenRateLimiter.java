@@ -0,0 +1,202 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.utils;
+
+import static io.meeds.github.gamification.utils.Utils.sha256Hex;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A client side limiter of GitHub API calls, by access token. The budget of
+ * each token is updated from GitHub responses rate limit headers. Background
+ * calls are paced using a token bucket which spreads the remaining budget,
+ * minus a headroom reserved to interactive calls, until the rate limit window
+ * reset. Background calls are deferred when the bucket is empty, when the
+ * budget runs low or when GitHub asked to retry later, while interactive calls
+ * aren't paced and are refused only when the budget is exhausted. Calling
+ * threads are never blocked. Budgets are indexed by a hash of the token, so
+ * that tokens aren't retained in clear.
+ */
+public class TokenRateLimiter {
+
+  private final Map<String, TokenBudget> budgets = new ConcurrentHashMap<>();
+
+  private final int                      burst;
+
+  private final long                     reservedRequests;
+
+  /**
+   * @param burst maximum number of background calls processed without pacing
+   * @param reservedRequests number of requests of each token budget reserved
+   *          to interactive calls
+   */
+  public TokenRateLimiter(int burst, long reservedRequests) {
+    this.burst = Math.max(1, burst);
+    this.reservedRequests = Math.max(0, reservedRequests);
+  }
+
+  /**
+   * Updates the budget of a token using the values returned by GitHub
+   *
+   * @param token GitHub access token
+   * @param remaining remaining requests in the current rate limit window
+   * @param reset rate limit window reset time, in epoch seconds
+   */
+  public void update(String token, long remaining, long reset) {
+    budgets.computeIfAbsent(sha256Hex(token), key -> new TokenBudget()).update(remaining, reset);
+  }
+
+  /**
+   * Defers background calls of a token until the time GitHub asked to retry,
+   * typically when a secondary rate limit is hit. The primary budget, used by
+   * interactive calls, is left unchanged.
+   *
+   * @param token GitHub access token
+   * @param retryTime time before which background calls are deferred, in
+   *          epoch seconds
+   */
+  public void updateSecondaryLimit(String token, long retryTime) {
+    budgets.computeIfAbsent(sha256Hex(token), key -> new TokenBudget()).updateSecondaryLimit(retryTime);
+  }
+
+  /**
+   * Forgets the budget of a token, typically when the token isn't valid
+   * anymore
+   *
+   * @param token GitHub access token
+   */
+  public void remove(String token) {
+    budgets.remove(sha256Hex(token));
+  }
+
+  /**
+   * Forgets the budget of all tokens
+   */
+  public void clear() {
+    budgets.clear();
+  }
+
+  /**
+   * @param token GitHub access token
+   * @return remaining requests of the token in the current rate limit window,
+   *         null when unknown or when the window was reset
+   */
+  public Long getRemaining(String token) {
+    TokenBudget budget = budgets.get(sha256Hex(token));
+    return budget == null ? null : budget.getRemaining(System.currentTimeMillis());
+  }
+
+  /**
+   * @param token GitHub access token
+   * @return rate limit window reset time, in epoch seconds, null when unknown
+   *         or when the window was reset
+   */
+  public Long getReset(String token) {
+    TokenBudget budget = budgets.get(sha256Hex(token));
+    return budget == null ? null : budget.getReset(System.currentTimeMillis());
+  }
+
+  /**
+   * Acquires the permission to call GitHub API using a token, without waiting.
+   *
+   * @param token GitHub access token
+   * @param background whether the call is made by a background task or by an
+   *          interactive user request
+   * @return true if the call can be made, false if it has to be deferred
+   */
+  public boolean acquire(String token, boolean background) {
+    TokenBudget budget = token == null ? null : budgets.get(sha256Hex(token));
+    if (budget == null) {
+      // No data yet, the call response will initialize the token budget
+      return true;
+    }
+    return budget.reserve(background, System.currentTimeMillis());
+  }
+
+  private class TokenBudget {
+
+    private long   remaining;
+
+    private long   reset;
+
+    private long   secondaryLimitReset;
+
+    private double bucket = burst;
+
+    private long   lastRefillTime;
+
+    private synchronized void update(long remaining, long reset) {
+      this.remaining = remaining;
+      this.reset = reset;
+    }
+
+    private synchronized void updateSecondaryLimit(long retryTime) {
+      this.secondaryLimitReset = Math.max(secondaryLimitReset, retryTime);
+      // Resume background calls at the paced rate once the limit is lifted
+      this.bucket = 0;
+      this.lastRefillTime = retryTime * 1000;
+    }
+
+    private synchronized Long getRemaining(long now) {
+      return now < reset * 1000 ? remaining : null;
+    }
+
+    private synchronized Long getReset(long now) {
+      return now < reset * 1000 ? reset : null;
+    }
+
+    /**
+     * @return true if the call can be made, false if it has to be deferred
+     */
+    private synchronized boolean reserve(boolean background, long now) {
+      if (background && now < secondaryLimitReset * 1000) {
+        return false;
+      }
+      long resetTime = reset * 1000;
+      if (now >= resetTime) {
+        // Rate limit window reset, wait for the next response to know the
+        // new budget
+        if (background) {
+          lastRefillTime = now;
+        }
+        return true;
+      }
+      long available = background ? remaining - reservedRequests : remaining;
+      if (available <= 0) {
+        return false;
+      }
+      if (!background) {
+        remaining--;
+        return true;
+      }
+      double rate = (double) available / (resetTime - now);
+      if (lastRefillTime > 0 && now > lastRefillTime) {
+        bucket = Math.min(burst, bucket + (now - lastRefillTime) * rate);
+      }
+      lastRefillTime = Math.max(lastRefillTime, now);
+      if (bucket < 1) {
+        return false;
+      }
+      bucket--;
+      remaining--;
+      return true;
+    }
+  }
+}
@@ -19,15 +19,23 @@
 package io.meeds.github.gamification.utils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.exoplatform.commons.utils.CommonsUtils;
 import org.exoplatform.services.log.ExoLogger;
 import org.exoplatform.services.log.Log;
@@ -50,6 +58,8 @@ public class Utils {
 
   public static final String   REPOSITORY                                 = "repository";
 
+  public static final long     UNKNOWN_ID                                 = Long.MIN_VALUE;
+
   public static final String   ID                                         = "id";
 
   public static final String   LOGIN                                      = "login";
@@ -185,57 +195,147 @@ public class Utils {
   public static final String[] GITHUB_TRIGGERS                            = new String[] { "pull_request", "issue_comment",           // NOSONAR
       "pull_request_review_comment", "pull_request_review", "issues", "push" };
 
-  private static final char[]  HEX                                        =
-                                   { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+  public static final String   HMAC_SHA256_ALGORITHM                      = "HmacSHA256";
+
+  public static final String   SHA1_SIGNATURE_PREFIX                      = "sha1=";
+
+  public static final String   SHA256_SIGNATURE_PREFIX                    = "sha256=";
+
+  private static final int     MAC_POOL_SIZE                              = 16;
+
+  private static final int     MAC_POOL_KEYS                              = 64;
+
+  /**
+   * Initialized {@link Mac} instances shared by all threads, keyed by algorithm
+   * and secret. Since a {@link Mac} isn't thread safe, an instance is removed
+   * from the pool while in use.
+   */
+  private static final Map<String, Queue<Mac>> MAC_POOL                 = new ConcurrentHashMap<>();
 
   private static final Log     LOG                                        = ExoLogger.getLogger(Utils.class);
 
+  public static final ObjectMapper OBJECT_MAPPER                          = new ObjectMapper();
+
+  private static final ObjectReader MAP_READER                            = OBJECT_MAPPER.readerFor(Map.class);
+
+  private static final ObjectReader MAP_ARRAY_READER                      = OBJECT_MAPPER.readerFor(Map[].class);
+
   private Utils() {
     // Private constructor for Utils class
   }
 
   public static boolean verifySignature(String webhookSecret, String payload, String signature) {
-    boolean isValid;
-    if (signature == null || webhookSecret == null) {
+    return verifySignature(webhookSecret, payload == null ? null : payload.getBytes(StandardCharsets.UTF_8), signature);
+  }
+
+  /**
+   * Verifies the webhook payload signature, sent by github either in
+   * 'X-Hub-Signature-256' header (sha256=...) or 'X-Hub-Signature' header
+   * (sha1=...), using a pooled {@link Mac} instance of the secret.
+   *
+   * @param webhookSecret webhook secret
+   * @param payload raw payload bytes
+   * @param signature signature header value
+   * @return true if the signature matches the payload
+   */
+  public static boolean verifySignature(String webhookSecret, byte[] payload, String signature) {
+    if (signature == null || webhookSecret == null || payload == null) {
+      return false;
+    }
+    String algorithm;
+    String expectedHex;
+    if (signature.startsWith(SHA256_SIGNATURE_PREFIX)) {
+      algorithm = HMAC_SHA256_ALGORITHM;
+      expectedHex = signature.substring(SHA256_SIGNATURE_PREFIX.length());
+    } else if (signature.startsWith(SHA1_SIGNATURE_PREFIX)) {
+      algorithm = HMAC_SHA1_ALGORITHM;
+      expectedHex = signature.substring(SHA1_SIGNATURE_PREFIX.length());
+    } else {
       return false;
     }
+    byte[] expected;
     try {
-      Mac mac = Mac.getInstance(HMAC_SHA1_ALGORITHM);
-      SecretKeySpec signingKey = new SecretKeySpec(webhookSecret.getBytes(), HMAC_SHA1_ALGORITHM);
-      mac.init(signingKey);
-      byte[] rawHmac = mac.doFinal(payload.getBytes());
-      String expected = signature.substring(5);
-      final int amount = rawHmac.length;
-      char[] raw = new char[2 * amount];
-      int j = 0;
-      for (byte b : rawHmac) {
-        raw[j++] = HEX[(0xF0 & b) >>> 4];
-        raw[j++] = HEX[(0x0F & b)];
-      }
-      String actual = new String(raw);
+      expected = HexFormat.of().parseHex(expectedHex);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    // Pooled instances are keyed by a hash to not keep the secret in clear
+    String macKey = algorithm + ":" + sha256Hex(webhookSecret);
+    Mac mac = borrowMac(macKey, algorithm, webhookSecret);
+    byte[] actual;
+    try {
+      actual = mac.doFinal(payload);
+    } finally {
+      releaseMac(macKey, mac);
+    }
+    return MessageDigest.isEqual(expected, actual);
+  }
 
-      isValid = expected.equals(actual);
-    } catch (NoSuchAlgorithmException | InvalidKeyException | IllegalStateException e) {
+  /**
+   * Computes the SHA-256 digest of a value, used to key caches by a secret
+   * without holding it in clear
+   *
+   * @param value value to hash
+   * @return hexadecimal SHA-256 digest
+   */
+  public static String sha256Hex(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Error computing SHA-256 digest", e);
+    }
+  }
+
+  private static Mac borrowMac(String macKey, String algorithm, String webhookSecret) {
+    Queue<Mac> macs = MAC_POOL.get(macKey);
+    Mac mac = macs == null ? null : macs.poll();
+    if (mac != null) {
+      return mac;
+    }
+    try {
+      mac = Mac.getInstance(algorithm);
+      mac.init(new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), algorithm));
+      return mac;
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
       throw new IllegalStateException("Error verifying signature", e);
     }
-    return isValid;
   }
 
-  @SuppressWarnings("unchecked")
+  private static void releaseMac(String macKey, Mac mac) {
+    if (MAC_POOL.size() >= MAC_POOL_KEYS && !MAC_POOL.containsKey(macKey)) {
+      // Drop the instances of previous secrets rather than growing unbounded
+      MAC_POOL.clear();
+    }
+    Queue<Mac> macs = MAC_POOL.computeIfAbsent(macKey, key -> new ConcurrentLinkedQueue<>());
+    if (macs.size() < MAC_POOL_SIZE) {
+      macs.offer(mac);
+    }
+  }
+
   public static Map<String, Object> fromJsonStringToMap(String jsonString) {
     try {
-      ObjectMapper objectMapper = new ObjectMapper();
-      return objectMapper.readValue(jsonString, Map.class);
+      return MAP_READER.readValue(jsonString);
     } catch (IOException e) {
       throw new IllegalStateException("Error converting JSON string to map: " + jsonString, e);
     }
   }
 
-  @SuppressWarnings("unchecked")
+  public static Map<String, Object> fromJsonBytesToMap(byte[] json) {
+    try {
+      return MAP_READER.readValue(json);
+    } catch (IOException e) {
+      throw new IllegalStateException("Error converting JSON content to map", e);
+    }
+  }
+
+  public static JsonParser createJsonParser(byte[] json) throws IOException {
+    return OBJECT_MAPPER.getFactory().createParser(json);
+  }
+
   public static Map<String, Object>[] fromJsonStringToMapCollection(String jsonString) {
     try {
-      ObjectMapper objectMapper = new ObjectMapper();
-      return objectMapper.readValue(jsonString, Map[].class);
+      return MAP_ARRAY_READER.readValue(jsonString);
     } catch (IOException e) {
       throw new IllegalStateException("Error converting JSON string to map: " + jsonString, e);
     }
@@ -254,6 +354,68 @@ public class Utils {
     return currentObject != null ? currentObject.toString() : null;
   }
 
+  /**
+   * Builds the details of a gamification action triggered by a GitHub event,
+   * in the form read back by {@link #getEventDetailId(String, String)}
+   *
+   * @param organizationId GitHub organization remote Id
+   * @param repositoryId GitHub repository remote Id
+   * @return event details
+   */
+  public static String buildEventDetails(String organizationId, String repositoryId) {
+    return "{" + ORGANIZATION_ID + ": " + organizationId + ", " + REPOSITORY_ID + ": " + repositoryId + "}";
+  }
+
+  /**
+   * Reads a numeric identifier from event details built by
+   * {@link #buildEventDetails(String, String)} without splitting the details
+   * nor allocating intermediate objects.
+   *
+   * @param eventDetails event details
+   * @param key identifier key
+   * @return identifier value, {@link #UNKNOWN_ID} when not found or not numeric
+   */
+  public static long getEventDetailId(String eventDetails, String key) {
+    if (eventDetails == null) {
+      return UNKNOWN_ID;
+    }
+    int length = eventDetails.length();
+    int index = eventDetails.indexOf(key);
+    while (index >= 0) {
+      int position = index + key.length();
+      while (position < length && eventDetails.charAt(position) == ' ') {
+        position++;
+      }
+      if (position < length && eventDetails.charAt(position) == ':') {
+        return parseId(eventDetails, position + 1);
+      }
+      index = eventDetails.indexOf(key, position);
+    }
+    return UNKNOWN_ID;
+  }
+
+  private static long parseId(String value, int start) {
+    int length = value.length();
+    int position = start;
+    while (position < length && value.charAt(position) == ' ') {
+      position++;
+    }
+    boolean negative = position < length && value.charAt(position) == '-';
+    if (negative) {
+      position++;
+    }
+    int digitsStart = position;
+    long id = 0;
+    while (position < length && value.charAt(position) >= '0' && value.charAt(position) <= '9') {
+      id = id * 10 + (value.charAt(position) - '0');
+      position++;
+    }
+    if (position == digitsStart) {
+      return UNKNOWN_ID;
+    }
+    return negative ? -id : id;
+  }
+
   public static String generateRandomSecret(int length) {
     SecureRandom secureRandom = new SecureRandom();
     StringBuilder word = new StringBuilder();
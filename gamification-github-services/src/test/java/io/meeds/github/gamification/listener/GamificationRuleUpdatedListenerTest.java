@@ -0,0 +1,132 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.listener;
+
+import static io.meeds.gamification.utils.Utils.POST_CREATE_RULE_EVENT;
+import static io.meeds.gamification.utils.Utils.POST_DELETE_RULE_EVENT;
+import static io.meeds.gamification.utils.Utils.POST_UPDATE_RULE_EVENT;
+import static io.meeds.github.gamification.services.CacheInvalidationService.RULE_CACHE;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import org.exoplatform.services.listener.Event;
+import org.exoplatform.services.listener.ListenerService;
+
+import io.meeds.gamification.model.EventDTO;
+import io.meeds.gamification.model.RuleDTO;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.services.EventIndexService;
+import io.meeds.github.gamification.services.RuleIndexService;
+
+@SpringBootTest(classes = { GamificationRuleUpdatedListener.class, })
+class GamificationRuleUpdatedListenerTest {
+
+  @MockBean
+  private ListenerService                 listenerService;
+
+  @MockBean
+  private CacheInvalidationService        cacheInvalidationService;
+
+  @MockBean
+  private EventIndexService               eventIndexService;
+
+  @MockBean
+  private RuleIndexService                ruleIndexService;
+
+  @MockBean
+  private Event<RuleDTO, String>          event;
+
+  @Autowired
+  private GamificationRuleUpdatedListener gamificationRuleUpdatedListener;
+
+  @Test
+  void init() {
+    gamificationRuleUpdatedListener.init();
+    verify(listenerService).addListener(POST_CREATE_RULE_EVENT, gamificationRuleUpdatedListener);
+    verify(listenerService).addListener(POST_UPDATE_RULE_EVENT, gamificationRuleUpdatedListener);
+    verify(listenerService).addListener(POST_DELETE_RULE_EVENT, gamificationRuleUpdatedListener);
+  }
+
+  @Test
+  void createRule() {
+    RuleDTO rule = newRule();
+    when(event.getSource()).thenReturn(rule);
+    when(event.getData()).thenReturn("root");
+    when(event.getEventName()).thenReturn(POST_CREATE_RULE_EVENT);
+
+    gamificationRuleUpdatedListener.onEvent(event);
+    verify(eventIndexService, times(1)).updateEvent(rule.getEvent());
+    verify(ruleIndexService, times(1)).updateRule(rule);
+    verify(ruleIndexService, never()).removeRule(anyLong());
+    verify(cacheInvalidationService, times(1)).invalidate(RULE_CACHE, "2");
+  }
+
+  @Test
+  void updateRule() {
+    RuleDTO rule = newRule();
+    when(event.getSource()).thenReturn(rule);
+    when(event.getData()).thenReturn("root");
+    when(event.getEventName()).thenReturn(POST_UPDATE_RULE_EVENT);
+
+    gamificationRuleUpdatedListener.onEvent(event);
+    verify(eventIndexService, times(1)).updateEvent(rule.getEvent());
+    verify(ruleIndexService, times(1)).updateRule(rule);
+    verify(ruleIndexService, never()).removeRule(anyLong());
+    verify(cacheInvalidationService, times(1)).invalidate(RULE_CACHE, "2");
+  }
+
+  @Test
+  void deleteRule() {
+    RuleDTO rule = newRule();
+    rule.setDeleted(true);
+    when(event.getSource()).thenReturn(rule);
+    when(event.getData()).thenReturn("root");
+    when(event.getEventName()).thenReturn(POST_DELETE_RULE_EVENT);
+
+    gamificationRuleUpdatedListener.onEvent(event);
+    verify(eventIndexService, times(1)).updateEvent(rule.getEvent());
+    verify(ruleIndexService, times(1)).removeRule(2L);
+    verify(ruleIndexService, never()).updateRule(any());
+    verify(cacheInvalidationService, times(1)).invalidate(RULE_CACHE, "2");
+  }
+
+  @Test
+  void ignoreUnsavedRule() {
+    when(event.getSource()).thenReturn(new RuleDTO());
+    when(event.getEventName()).thenReturn(POST_UPDATE_RULE_EVENT);
+
+    gamificationRuleUpdatedListener.onEvent(event);
+    verifyNoInteractions(eventIndexService, ruleIndexService, cacheInvalidationService);
+  }
+
+  private RuleDTO newRule() {
+    EventDTO eventDTO = new EventDTO();
+    eventDTO.setTitle("creatPullRequest");
+    eventDTO.setType("github");
+    RuleDTO rule = new RuleDTO();
+    rule.setId(2L);
+    rule.setEvent(eventDTO);
+    return rule;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.meeds.github.gamification.plugin.GithubTriggerPlugin;
+
+class WebhookContextTest {
+
+  private static final String PAYLOAD = "{\"action\":\"opened\",\"organization\":{\"id\":14524,\"login\":\"meeds\"},"
+      + "\"repository\":{\"id\":555564545,\"name\":\"repo\"},\"sender\":{\"login\":\"sender\"}}";
+
+  @Test
+  void parsePayloadOnce() {
+    WebhookContext webhookContext = new WebhookContext("pull_request", "sha256=signature", PAYLOAD);
+    assertEquals("pull_request", webhookContext.getTrigger());
+    assertEquals("sha256=signature", webhookContext.getSignature());
+    assertArrayEquals(PAYLOAD.getBytes(StandardCharsets.UTF_8), webhookContext.getPayload());
+
+    Map<String, Object> payloadMap = webhookContext.getPayloadMap();
+    assertEquals("opened", payloadMap.get("action"));
+    assertSame(payloadMap, webhookContext.getPayloadMap());
+  }
+
+  @Test
+  void shareParsedPayloadWithTriggerPlugins() {
+    List<Map<String, Object>> receivedPayloads = new ArrayList<>();
+    GithubTriggerPlugin triggerPlugin = new GithubTriggerPlugin() {
+      @Override
+      public List<Event> getEvents(Map<String, Object> payload) {
+        receivedPayloads.add(payload);
+        return Collections.emptyList();
+      }
+    };
+    WebhookContext webhookContext = new WebhookContext("pull_request", null, PAYLOAD.getBytes(StandardCharsets.UTF_8));
+    Map<String, Object> payloadMap = webhookContext.getPayloadMap();
+
+    triggerPlugin.getEvents(webhookContext);
+    triggerPlugin.getEvents(webhookContext);
+    assertEquals(2, receivedPayloads.size());
+    assertSame(payloadMap, receivedPayloads.get(0));
+    assertSame(payloadMap, receivedPayloads.get(1));
+  }
+
+  @Test
+  void extractTriageFieldsWithoutBindingPayload() {
+    String payload = "{\"ref\":\"refs/heads/develop\",\"commits\":[{\"id\":\"1\",\"author\":{\"id\":1}},{\"id\":\"2\"}],"
+        + "\"repository\":{\"owner\":{\"id\":9,\"login\":\"owner\"},\"id\":555564545,\"name\":\"repo\"},"
+        + "\"sender\":{\"id\":7,\"login\":\"sender\"},\"organization\":{\"login\":\"meeds\",\"id\":14524},"
+        + "\"action\":\"created\",\"head_commit\":{\"id\":\"2\"}}";
+    WebhookContext webhookContext = new WebhookContext("push", null, payload);
+
+    assertEquals("created", webhookContext.getAction());
+    assertEquals(14524L, webhookContext.getOrganizationId());
+    assertEquals(555564545L, webhookContext.getRepositoryId());
+    assertEquals("sender", webhookContext.getSenderLogin());
+    assertNull(ReflectionTestUtils.getField(webhookContext, "payloadMap"));
+  }
+
+  @Test
+  void extractTriageFieldsFromIncompletePayload() {
+    WebhookContext webhookContext = new WebhookContext("push", null, "{\"repository\":{\"id\":555564545}}");
+    assertNull(webhookContext.getOrganizationId());
+    assertNull(webhookContext.getAction());
+    assertEquals(555564545L, webhookContext.getRepositoryId());
+
+    webhookContext = new WebhookContext("push", null, "{\"organization\":{\"id\":\"meeds\"}}");
+    assertNull(webhookContext.getOrganizationId());
+
+    webhookContext = new WebhookContext("push", null, "[{\"organization\":{\"id\":14524}}]");
+    assertNull(webhookContext.getOrganizationId());
+
+    webhookContext = new WebhookContext("push", null, "{\"organization\":{\"id\":14524");
+    assertNull(webhookContext.getOrganizationId());
+
+    webhookContext = new WebhookContext("push", null, (String) null);
+    assertNull(webhookContext.getOrganizationId());
+  }
+}
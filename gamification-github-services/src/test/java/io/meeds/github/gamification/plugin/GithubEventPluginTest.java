@@ -22,6 +22,10 @@ package io.meeds.github.gamification.plugin;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -68,6 +72,35 @@ public class GithubEventPluginTest {
     assertTrue(githubEventPlugin.isValidEvent(eventProperties,
                                               "{" + ORGANIZATION_ID + ": " + 132452 + ", " + REPOSITORY_ID + ": " + "1115454"
                                                   + "}"));
+    assertTrue(githubEventPlugin.isValidEvent(eventProperties, buildEventDetails("132452", "1115454")));
+    assertFalse(githubEventPlugin.isValidEvent(eventProperties, buildEventDetails("132452", null)));
 
+    eventProperties.remove(REPOSITORY_IDS);
+    assertTrue(githubEventPlugin.isValidEvent(eventProperties, buildEventDetails("132452", "221545")));
+    assertFalse(githubEventPlugin.isValidEvent(eventProperties, buildEventDetails("132453", "221545")));
+  }
+
+  @Test
+  public void testRuleMatchersBoundedUnderConcurrency() throws InterruptedException {
+    GithubEventPlugin githubEventPlugin = new GithubEventPlugin();
+    AtomicInteger matchedEvents = new AtomicInteger();
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    try {
+      for (int i = 0; i < 2500; i++) {
+        String repositoryId = String.valueOf(i);
+        executorService.execute(() -> {
+          Map<String, String> eventProperties = Map.of(ORGANIZATION_ID, "132452", REPOSITORY_IDS, repositoryId);
+          if (githubEventPlugin.isValidEvent(eventProperties, buildEventDetails("132452", repositoryId))) {
+            matchedEvents.incrementAndGet();
+          }
+        });
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals(2500, matchedEvents.get());
+    // 2500 distinct matchers with a bound of 1000: cleared twice then 500 kept
+    assertEquals(500, githubEventPlugin.getRuleMatchersCount());
   }
 }
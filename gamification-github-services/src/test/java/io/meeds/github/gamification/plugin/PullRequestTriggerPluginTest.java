@@ -0,0 +1,78 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2024 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.plugin;
+
+import static io.meeds.github.gamification.utils.Utils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.WebhookContext;
+
+class PullRequestTriggerPluginTest {
+
+  private static final String PAYLOAD =
+                                      "{\"action\":\"%s\",\"number\":2,\"pull_request\":{\"html_url\":\"https://github.com/meeds/pull/2\","
+                                          + "\"merged\":%s,\"commits\":[{\"sha\":\"1\"}],\"user\":{\"login\":\"author\"}},"
+                                          + "\"requested_reviewer\":{\"login\":\"reviewer\"},"
+                                          + "\"repository\":{\"id\":555564545,\"name\":\"repo\"},"
+                                          + "\"organization\":{\"id\":14524,\"login\":\"meeds\"},"
+                                          + "\"sender\":{\"login\":\"sender\",\"type\":\"User\"}}";
+
+  private final PullRequestTriggerPlugin plugin = new PullRequestTriggerPlugin();
+
+  @Test
+  void getEventsFromTypedPayload() {
+    WebhookContext webhookContext = new WebhookContext("pull_request", null, String.format(PAYLOAD, OPENED, false));
+    assertEquals(OPENED, webhookContext.getAction());
+    assertEquals(14524L, webhookContext.getOrganizationId());
+    assertEquals(555564545L, webhookContext.getRepositoryId());
+    assertEquals("sender", webhookContext.getSenderLogin());
+
+    List<Event> events = plugin.getEvents(webhookContext);
+    assertEquals(1, events.size());
+    Event event = events.get(0);
+    assertEquals(CREATE_PULL_REQUEST_EVENT_NAME, event.getName());
+    assertEquals("sender", event.getReceiver());
+    assertEquals("https://github.com/meeds/pull/2", event.getObjectId());
+    assertEquals("14524", event.getOrganizationId());
+    assertEquals("555564545", event.getRepositoryId());
+
+    events = plugin.getEvents(new WebhookContext("pull_request", null, String.format(PAYLOAD, REVIEW_REQUESTED, false)));
+    assertEquals(REQUEST_REVIEW_FOR_PULL_REQUEST_EVENT_NAME, events.get(0).getName());
+    assertEquals("https://github.com/meeds/pull/2?requestedReviewer=reviewer", events.get(0).getObjectId());
+
+    assertTrue(plugin.getEvents(new WebhookContext("pull_request", null, String.format(PAYLOAD, CLOSED, true))).isEmpty());
+    assertEquals(CLOSE_PULL_REQUEST_EVENT_NAME,
+                 plugin.getEvents(new WebhookContext("pull_request", null, String.format(PAYLOAD, CLOSED, false)))
+                       .get(0)
+                       .getName());
+  }
+
+  @Test
+  void isActionHandled() {
+    assertTrue(plugin.isActionHandled(OPENED));
+    assertFalse(plugin.isActionHandled("synchronize"));
+    assertFalse(plugin.isActionHandled(null));
+  }
+}
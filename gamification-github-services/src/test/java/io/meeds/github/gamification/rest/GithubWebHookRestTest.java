@@ -19,9 +19,17 @@
  */
 package io.meeds.github.gamification.rest;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import io.meeds.github.gamification.services.GithubTriggerService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -72,10 +80,77 @@ class GithubWebHookRestTest {
   @Test
   void githubEventAnonymously() throws Exception {
     ResultActions response = mockMvc.perform(post(REST_PATH).header("x-github-event", "pushCode")
+                                                            .header("x-github-delivery", "72d3162e-cc78-11e3-81ab-4c9367dc0958")
+                                                            .header("x-hub-signature", "signature")
+                                                            .content("content")
+                                                            .contentType(MediaType.APPLICATION_JSON)
+                                                            .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isOk());
+  }
+
+  @Test
+  void githubEventWhenQueueSaturated() throws Exception {
+    doThrow(new RejectedExecutionException()).when(githubTriggerService).handleTriggerAsync(any(), any(), any(), any(byte[].class));
+    ResultActions response = mockMvc.perform(post(REST_PATH).header("x-github-event", "pushCode")
+                                                            .header("x-github-delivery", "72d3162e-cc78-11e3-81ab-4c9367dc0958")
                                                             .header("x-hub-signature", "signature")
                                                             .content("content")
                                                             .contentType(MediaType.APPLICATION_JSON)
                                                             .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isServiceUnavailable()).andExpect(header().exists("Retry-After"));
+  }
+
+  @Test
+  void githubEventWithSha256Signature() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH).header("x-github-event", "push")
+                                                            .header("x-github-delivery", "72d3162e-cc78-11e3-81ab-4c9367dc0958")
+                                                            .header("x-hub-signature-256", "sha256=signature")
+                                                            .header("x-hub-signature", "sha1=signature")
+                                                            .content("content")
+                                                            .contentType(MediaType.APPLICATION_JSON)
+                                                            .accept(MediaType.APPLICATION_JSON));
     response.andExpect(status().isOk());
+    verify(githubTriggerService).handleTriggerAsync(eq("push"),
+                                                    eq("sha256=signature"),
+                                                    eq("72d3162e-cc78-11e3-81ab-4c9367dc0958"),
+                                                    eq("content".getBytes()));
+  }
+
+  @Test
+  void githubEventWithDeliveryId() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH).header("x-github-event", "push")
+                                                            .header("x-github-delivery", "72d3162e-cc78-11e3-81ab-4c9367dc0958")
+                                                            .header("x-hub-signature-256", "sha256=signature")
+                                                            .content("content")
+                                                            .contentType(MediaType.APPLICATION_JSON)
+                                                            .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isOk());
+    verify(githubTriggerService).handleTriggerAsync(eq("push"),
+                                                    eq("sha256=signature"),
+                                                    eq("72d3162e-cc78-11e3-81ab-4c9367dc0958"),
+                                                    eq("content".getBytes()));
+  }
+
+  @Test
+  void githubEventWithoutDeliveryId() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH).header("x-github-event", "push")
+                                                            .header("x-hub-signature-256", "sha256=signature")
+                                                            .content("content")
+                                                            .contentType(MediaType.APPLICATION_JSON)
+                                                            .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isBadRequest());
+    verifyNoInteractions(githubTriggerService);
+  }
+
+  @Test
+  void githubEventWithInvalidSignature() throws Exception {
+    doThrow(new IllegalAccessException()).when(githubTriggerService).handleTriggerAsync(any(), any(), any(), any(byte[].class));
+    ResultActions response = mockMvc.perform(post(REST_PATH).header("x-github-event", "push")
+                                                            .header("x-github-delivery", "72d3162e-cc78-11e3-81ab-4c9367dc0958")
+                                                            .header("x-hub-signature-256", "sha256=forged")
+                                                            .content("content")
+                                                            .contentType(MediaType.APPLICATION_JSON)
+                                                            .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isUnauthorized());
   }
 }
@@ -22,6 +22,7 @@ package io.meeds.github.gamification.rest;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -29,9 +30,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.util.List;
 
+import io.meeds.github.gamification.model.CacheStatistics;
 import io.meeds.github.gamification.model.TokenStatus;
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.model.IngestionStatistics;
+import io.meeds.github.gamification.model.OrganizationIngestionStatistics;
 import io.meeds.github.gamification.services.GithubConsumerService;
+import io.meeds.github.gamification.services.GithubTriggerService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
 import io.meeds.github.gamification.services.WebhookService;
 import org.exoplatform.commons.ObjectAlreadyExistsException;
 import org.junit.jupiter.api.BeforeEach;
@@ -79,6 +85,12 @@ class HooksManagementRestTest {
   @MockBean
   private GithubConsumerService githubConsumerService;
 
+  @MockBean
+  private GithubTriggerService  githubTriggerService;
+
+  @MockBean
+  private TriggerEnablementService triggerEnablementService;
+
   @Autowired
   private SecurityFilterChain   filterChain;
 
@@ -368,6 +380,107 @@ class HooksManagementRestTest {
     response.andExpect(status().isUnauthorized());
   }
 
+  @Test
+  void refreshTriggerStatusAnonymously() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH + "/trigger/status").param("organizationId", "1")
+                                                                                .param("trigger", "pullRequestValidated")
+                                                                                .contentType(MediaType.APPLICATION_JSON)
+                                                                                .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isForbidden());
+  }
+
+  @Test
+  void refreshTriggerStatusSimpleUser() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH + "/trigger/status").param("organizationId", "1")
+                                                                                .param("trigger", "pullRequestValidated")
+                                                                                .contentType(MediaType.APPLICATION_JSON)
+                                                                                .accept(MediaType.APPLICATION_JSON)
+                                                                                .with(testSimpleUser()));
+    response.andExpect(status().isOk());
+    verify(triggerEnablementService).refreshTriggerEnablement("pullRequestValidated", 1L, SIMPLE_USER);
+
+    doThrow(new IllegalAccessException()).when(triggerEnablementService)
+                                         .refreshTriggerEnablement("pullRequestValidated", 1L, SIMPLE_USER);
+    response = mockMvc.perform(post(REST_PATH + "/trigger/status").param("organizationId", "1")
+                                                                  .param("trigger", "pullRequestValidated")
+                                                                  .contentType(MediaType.APPLICATION_JSON)
+                                                                  .accept(MediaType.APPLICATION_JSON)
+                                                                  .with(testSimpleUser()));
+    response.andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void updateWebHookReposStatusAnonymously() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH + "/repos/status").param("organizationId", "1")
+                                                                              .param("repositoryIds", "125", "126")
+                                                                              .param("enabled", "false")
+                                                                              .contentType(MediaType.APPLICATION_JSON)
+                                                                              .accept(MediaType.APPLICATION_JSON));
+    response.andExpect(status().isForbidden());
+  }
+
+  @Test
+  void updateWebHookReposStatusSimpleUser() throws Exception {
+    ResultActions response = mockMvc.perform(post(REST_PATH + "/repos/status").param("organizationId", "1")
+                                                                              .param("repositoryIds", "125", "126")
+                                                                              .param("enabled", "false")
+                                                                              .contentType(MediaType.APPLICATION_JSON)
+                                                                              .accept(MediaType.APPLICATION_JSON)
+                                                                              .with(testSimpleUser()));
+    response.andExpect(status().isOk());
+    verify(webhookService).setWebHookRepositoriesEnabled(1L, List.of(125L, 126L), false, SIMPLE_USER);
+
+    doThrow(new IllegalAccessException()).when(webhookService)
+                                         .setWebHookRepositoriesEnabled(1L, List.of(125L, 126L), false, SIMPLE_USER);
+    response = mockMvc.perform(post(REST_PATH + "/repos/status").param("organizationId", "1")
+                                                                .param("repositoryIds", "125", "126")
+                                                                .param("enabled", "false")
+                                                                .contentType(MediaType.APPLICATION_JSON)
+                                                                .accept(MediaType.APPLICATION_JSON)
+                                                                .with(testSimpleUser()));
+    response.andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void getIngestionStatisticsAnonymously() throws Exception {
+    ResultActions response = mockMvc.perform(get(REST_PATH + "/statistics"));
+    response.andExpect(status().isForbidden());
+  }
+
+  @Test
+  void getIngestionStatisticsSimpleUser() throws Exception {
+    List<OrganizationIngestionStatistics> organizations = List.of(new OrganizationIngestionStatistics(12, 1, 2, 1, 10));
+    when(githubTriggerService.getIngestionStatistics(SIMPLE_USER)).thenReturn(new IngestionStatistics(500,
+                                                                                                       2,
+                                                                                                       5,
+                                                                                                       1,
+                                                                                                       3,
+                                                                                                       8,
+                                                                                                       4,
+                                                                                                       6,
+                                                                                                       7,
+                                                                                                       10,
+                                                                                                       organizations));
+    ResultActions response = mockMvc.perform(get(REST_PATH + "/statistics").with(testSimpleUser()));
+    response.andExpect(status().isOk());
+
+    doThrow(new IllegalAccessException()).when(githubTriggerService).getIngestionStatistics(SIMPLE_USER);
+    response = mockMvc.perform(get(REST_PATH + "/statistics").with(testSimpleUser()));
+    response.andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void getCacheStatisticsSimpleUser() throws Exception {
+    CacheStatistics cacheStatistics = new CacheStatistics("gamification.github.organizationRepos", 500, 600, 2, 3, 1, 0, 0.75);
+    when(githubConsumerService.getCacheStatistics(SIMPLE_USER)).thenReturn(List.of(cacheStatistics));
+    ResultActions response = mockMvc.perform(get(REST_PATH + "/caches/statistics").with(testSimpleUser()));
+    response.andExpect(status().isOk());
+
+    doThrow(new IllegalAccessException()).when(githubConsumerService).getCacheStatistics(SIMPLE_USER);
+    response = mockMvc.perform(get(REST_PATH + "/caches/statistics").with(testSimpleUser()));
+    response.andExpect(status().isUnauthorized());
+  }
+
   private RequestPostProcessor testSimpleUser() {
     return user(SIMPLE_USER).password(TEST_PASSWORD).authorities(new SimpleGrantedAuthority("users"));
   }
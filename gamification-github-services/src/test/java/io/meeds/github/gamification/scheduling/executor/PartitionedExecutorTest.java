@@ -0,0 +1,193 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.scheduling.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class PartitionedExecutorTest {
+
+  @Test
+  void executeInPartitionOrder() throws InterruptedException {
+    PartitionedExecutor executor = new PartitionedExecutor(4, false, 400, 200, 2, null, "test-%d");
+    try {
+      List<Integer> repositoryTasks = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch latch = new CountDownLatch(150);
+      for (int i = 0; i < 50; i++) {
+        int index = i;
+        executor.execute(12L, 120L, () -> {
+          repositoryTasks.add(index);
+          latch.countDown();
+        });
+        executor.execute(12L, 121L, latch::countDown);
+        executor.execute(13L, 130L, latch::countDown);
+      }
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+        expected.add(i);
+      }
+      assertEquals(expected, repositoryTasks);
+      assertEquals(4, executor.getWorkersCount());
+      assertEquals(400, executor.getQueueCapacity());
+      assertEquals(2, executor.getOrganizationsStatistics().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void survivesTaskErrors() throws InterruptedException {
+    PartitionedExecutor executor = new PartitionedExecutor(1, false, 10, 10, 1, null, "test-%d");
+    try {
+      CountDownLatch latch = new CountDownLatch(1);
+      executor.execute(12L, 120L, () -> {
+        throw new AssertionError("Task error");
+      });
+      executor.execute(12L, 120L, latch::countDown);
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void serveOrganizationsFairly() throws InterruptedException {
+    PartitionedExecutor executor = new PartitionedExecutor(1, false, 100, 100, 1, Map.of(13L, 2), "test-%d");
+    CountDownLatch blocker = new CountDownLatch(1);
+    try {
+      List<Long> processedOrganizations = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch latch = new CountDownLatch(25);
+      executor.execute(12L, 12L, () -> await(blocker));
+      while (executor.getActiveCount() == 0) {
+        Thread.sleep(10);
+      }
+      for (int i = 0; i < 20; i++) {
+        executor.execute(12L, 12L, () -> {
+          processedOrganizations.add(12L);
+          latch.countDown();
+        });
+      }
+      for (int i = 0; i < 4; i++) {
+        executor.execute(13L, 13L, () -> {
+          processedOrganizations.add(13L);
+          latch.countDown();
+        });
+      }
+      executor.execute(14L, 14L, () -> {
+        processedOrganizations.add(14L);
+        latch.countDown();
+      });
+      blocker.countDown();
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      // Organization 13 has a weight of 2, it's served twice per round
+      assertEquals(List.of(12L, 13L, 13L, 14L, 12L, 13L, 13L, 12L), processedOrganizations.subList(0, 8));
+    } finally {
+      blocker.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void rejectWhenOrganizationQueueSaturated() throws InterruptedException {
+    PartitionedExecutor executor = new PartitionedExecutor(1, false, 10, 2, 1, null, "test-%d");
+    CountDownLatch blocker = new CountDownLatch(1);
+    try {
+      executor.execute(1L, 1L, () -> await(blocker));
+      while (executor.getActiveCount() == 0) {
+        Thread.sleep(10);
+      }
+      executor.execute(1L, 1L, () -> {
+      });
+      executor.execute(1L, 1L, () -> {
+      });
+      assertEquals(0, executor.remainingCapacity(1L));
+      assertThrows(RejectedExecutionException.class, () -> executor.execute(1L, 1L, () -> {
+      }));
+      assertEquals(2, executor.remainingCapacity(2L));
+      executor.execute(2L, 2L, () -> {
+      });
+    } finally {
+      blocker.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void executeOnVirtualThreads() throws InterruptedException {
+    PartitionedExecutor executor = new PartitionedExecutor(3, true, 400, 200, 1, null, "test-%d");
+    try {
+      AtomicInteger inFlight = new AtomicInteger();
+      AtomicInteger maxInFlight = new AtomicInteger();
+      AtomicBoolean platformThread = new AtomicBoolean();
+      List<Integer> organizationTasks = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch latch = new CountDownLatch(60);
+      for (int i = 0; i < 20; i++) {
+        int index = i;
+        for (long organizationId = 1; organizationId <= 3; organizationId++) {
+          long taskOrganizationId = organizationId;
+          executor.execute(organizationId, organizationId, () -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            platformThread.compareAndSet(false, !Thread.currentThread().isVirtual());
+            if (taskOrganizationId == 1) {
+              organizationTasks.add(index);
+            }
+            sleep(5);
+            inFlight.decrementAndGet();
+            latch.countDown();
+          });
+        }
+      }
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertTrue(executor.isVirtualThreads());
+      assertFalse(platformThread.get());
+      assertTrue(maxInFlight.get() <= 3);
+      assertEquals(IntStream.range(0, 20).boxed().toList(), organizationTasks);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
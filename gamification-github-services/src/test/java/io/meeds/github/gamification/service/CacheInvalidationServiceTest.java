@@ -0,0 +1,89 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.service;
+
+import static io.meeds.github.gamification.services.CacheInvalidationService.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.List;
+
+import org.exoplatform.services.listener.ListenerService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import io.meeds.github.gamification.model.CacheInvalidation;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.services.impl.CacheInvalidationServiceImpl;
+import io.meeds.github.gamification.storage.CacheInvalidationStorage;
+
+@SpringBootTest(classes = { CacheInvalidationServiceImpl.class })
+class CacheInvalidationServiceTest {
+
+  @MockBean
+  private CacheInvalidationStorage cacheInvalidationStorage;
+
+  @MockBean
+  private ListenerService          listenerService;
+
+  @Autowired
+  private CacheInvalidationService cacheInvalidationService;
+
+  @Test
+  void testProcessInvalidations() throws Exception {
+    // Invalidations recorded before startup are ignored
+    CacheInvalidation oldInvalidation = new CacheInvalidation(5, WEBHOOK_CACHE, "11", "otherNodeId", new Date());
+    when(cacheInvalidationStorage.getLastInvalidationId()).thenReturn(5L);
+    when(cacheInvalidationStorage.getInvalidations(0L, 100)).thenReturn(List.of(oldInvalidation));
+    cacheInvalidationService.processInvalidations();
+    verify(listenerService, never()).broadcast(anyString(), any(), any());
+
+    cacheInvalidationService.invalidate(WEBHOOK_CACHE, "12");
+    ArgumentCaptor<String> nodeIdCaptor = ArgumentCaptor.forClass(String.class);
+    verify(cacheInvalidationStorage).saveInvalidation(eq(WEBHOOK_CACHE), eq("12"), nodeIdCaptor.capture());
+    String nodeId = nodeIdCaptor.getValue();
+
+    CacheInvalidation otherInvalidation = new CacheInvalidation(7, REPOSITORY_STATUS_CACHE, "13", "otherNodeId", new Date());
+    CacheInvalidation ownInvalidation = new CacheInvalidation(8, WEBHOOK_CACHE, "12", nodeId, new Date());
+    when(cacheInvalidationStorage.getInvalidations(0L, 100)).thenReturn(List.of(oldInvalidation,
+                                                                                otherInvalidation,
+                                                                                ownInvalidation));
+    cacheInvalidationService.processInvalidations();
+    verify(listenerService, never()).broadcast(CACHE_INVALIDATED_EVENT, WEBHOOK_CACHE, "11");
+    // Own invalidations are already applied locally
+    verify(listenerService, never()).broadcast(CACHE_INVALIDATED_EVENT, WEBHOOK_CACHE, "12");
+    verify(listenerService, times(1)).broadcast(CACHE_INVALIDATED_EVENT, REPOSITORY_STATUS_CACHE, "13");
+    verify(cacheInvalidationStorage, times(1)).purgeInvalidations(any());
+
+    // Invalidation committed after the ones with greater identifiers
+    CacheInvalidation lateInvalidation = new CacheInvalidation(6, ACCOUNT_CACHE, "githubUser", "otherNodeId", new Date());
+    when(cacheInvalidationStorage.getInvalidations(0L, 100)).thenReturn(List.of(oldInvalidation,
+                                                                                lateInvalidation,
+                                                                                otherInvalidation,
+                                                                                ownInvalidation));
+    cacheInvalidationService.processInvalidations();
+    verify(listenerService, times(1)).broadcast(CACHE_INVALIDATED_EVENT, ACCOUNT_CACHE, "githubUser");
+    verify(listenerService, times(2)).broadcast(anyString(), any(), any());
+    verify(cacheInvalidationStorage, times(1)).purgeInvalidations(any());
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.service;
+
+
+import static io.meeds.github.gamification.utils.Utils.CONNECTOR_NAME;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import io.meeds.gamification.model.EventDTO;
+import io.meeds.gamification.service.EventService;
+import io.meeds.github.gamification.services.EventIndexService;
+import io.meeds.github.gamification.services.impl.EventIndexServiceImpl;
+
+@SpringBootTest(classes = { EventIndexServiceImpl.class })
+class EventIndexServiceTest {
+
+  @MockBean
+  private EventService      eventService;
+
+  @Autowired
+  private EventIndexService eventIndexService;
+
+  @Test
+  void testEventsIndex() {
+    eventIndexService.clearEventsIndex();
+    EventDTO eventDTO = new EventDTO();
+    eventDTO.setTitle("creatPullRequest");
+    when(eventService.getEventsByTitle("creatPullRequest", 0, -1)).thenReturn(List.of(eventDTO));
+    when(eventService.getEventsByCancellerTrigger(CONNECTOR_NAME, "closePullRequest", 0, -1)).thenReturn(List.of(eventDTO));
+
+    assertTrue(eventIndexService.isEventRegistered("creatPullRequest"));
+    assertTrue(eventIndexService.isEventRegistered("creatPullRequest"));
+    assertFalse(eventIndexService.isEventRegistered("closePullRequest"));
+    assertEquals(List.of("creatPullRequest"), eventIndexService.getCancelledEventTitles("closePullRequest"));
+    assertEquals(List.of("creatPullRequest"), eventIndexService.getCancelledEventTitles("closePullRequest"));
+    verify(eventService, times(1)).getEventsByTitle("creatPullRequest", 0, -1);
+    verify(eventService, times(1)).getEventsByCancellerTrigger(CONNECTOR_NAME, "closePullRequest", 0, -1);
+
+    eventIndexService.clearEventsIndex();
+    assertTrue(eventIndexService.isEventRegistered("creatPullRequest"));
+    verify(eventService, times(2)).getEventsByTitle("creatPullRequest", 0, -1);
+  }
+
+  @Test
+  void testUpdateEvent() {
+    eventIndexService.clearEventsIndex();
+    EventDTO eventDTO = new EventDTO();
+    eventDTO.setTitle("reviewPullRequest");
+    eventDTO.setType(CONNECTOR_NAME);
+    eventDTO.setCancellerEvents(List.of("reviewRequestRemoved"));
+    when(eventService.getEventsByTitle("reviewPullRequest", 0, -1)).thenReturn(List.of(eventDTO));
+    when(eventService.getEventsByCancellerTrigger(CONNECTOR_NAME, "reviewRequestRemoved", 0, -1)).thenReturn(List.of(eventDTO));
+    when(eventService.getEventsByCancellerTrigger(CONNECTOR_NAME, "closePullRequest", 0, -1)).thenReturn(List.of());
+
+    assertTrue(eventIndexService.isEventRegistered("reviewPullRequest"));
+    assertFalse(eventIndexService.isEventRegistered("pushCode"));
+    assertEquals(List.of("reviewPullRequest"), eventIndexService.getCancelledEventTitles("reviewRequestRemoved"));
+    assertEquals(List.of(), eventIndexService.getCancelledEventTitles("closePullRequest"));
+
+    // Only the entries of the updated event are reloaded
+    eventDTO.setCancellerEvents(List.of("closePullRequest"));
+    eventIndexService.updateEvent(eventDTO);
+    assertTrue(eventIndexService.isEventRegistered("reviewPullRequest"));
+    assertFalse(eventIndexService.isEventRegistered("pushCode"));
+    eventIndexService.getCancelledEventTitles("reviewRequestRemoved");
+    eventIndexService.getCancelledEventTitles("closePullRequest");
+    verify(eventService, times(2)).getEventsByTitle("reviewPullRequest", 0, -1);
+    verify(eventService, times(1)).getEventsByTitle("pushCode", 0, -1);
+    verify(eventService, times(2)).getEventsByCancellerTrigger(CONNECTOR_NAME, "reviewRequestRemoved", 0, -1);
+    verify(eventService, times(2)).getEventsByCancellerTrigger(CONNECTOR_NAME, "closePullRequest", 0, -1);
+
+    // Events of other connectors are ignored
+    eventDTO.setType("gitlab");
+    eventIndexService.updateEvent(eventDTO);
+    assertTrue(eventIndexService.isEventRegistered("reviewPullRequest"));
+    verify(eventService, times(2)).getEventsByTitle("reviewPullRequest", 0, -1);
+  }
+
+  @Test
+  void testUpdateEventWhileLoading() {
+    eventIndexService.clearEventsIndex();
+    EventDTO eventDTO = new EventDTO();
+    eventDTO.setTitle("commentPullRequest");
+    eventDTO.setType(CONNECTOR_NAME);
+    when(eventService.getEventsByTitle("commentPullRequest", 0, -1)).thenAnswer(invocation -> {
+      // Event created once the events were read
+      eventIndexService.updateEvent(eventDTO);
+      return List.of();
+    }).thenReturn(List.of(eventDTO));
+
+    assertFalse(eventIndexService.isEventRegistered("commentPullRequest"));
+    // The stale entry isn't kept in the index
+    assertTrue(eventIndexService.isEventRegistered("commentPullRequest"));
+    assertTrue(eventIndexService.isEventRegistered("commentPullRequest"));
+    verify(eventService, times(2)).getEventsByTitle("commentPullRequest", 0, -1);
+  }
+}
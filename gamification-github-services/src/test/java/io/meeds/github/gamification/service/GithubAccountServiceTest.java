@@ -0,0 +1,78 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.service;
+
+
+import static io.meeds.github.gamification.utils.Utils.CONNECTOR_NAME;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import io.meeds.gamification.service.ConnectorService;
+import io.meeds.github.gamification.services.GithubAccountService;
+import io.meeds.github.gamification.services.impl.GithubAccountServiceImpl;
+
+@SpringBootTest(classes = { GithubAccountServiceImpl.class })
+class GithubAccountServiceTest {
+
+  @MockBean
+  private ConnectorService     connectorService;
+
+  @Autowired
+  private GithubAccountService githubAccountService;
+
+  @Test
+  void testGetAssociatedUsername() {
+    githubAccountService.clearAssociatedUsernames();
+    when(connectorService.getAssociatedUsername(CONNECTOR_NAME, "githubUser")).thenReturn("user");
+
+    assertNull(githubAccountService.getAssociatedUsername(null));
+    assertEquals("user", githubAccountService.getAssociatedUsername("githubUser"));
+    assertEquals("user", githubAccountService.getAssociatedUsername("githubUser"));
+    assertNull(githubAccountService.getAssociatedUsername("dependabot[bot]"));
+    assertNull(githubAccountService.getAssociatedUsername("dependabot[bot]"));
+    verify(connectorService, times(1)).getAssociatedUsername(CONNECTOR_NAME, "githubUser");
+    verify(connectorService, times(1)).getAssociatedUsername(CONNECTOR_NAME, "dependabot[bot]");
+
+    when(connectorService.getAssociatedUsername(CONNECTOR_NAME, "dependabot[bot]")).thenReturn("bot");
+    githubAccountService.clearAssociatedUsername("dependabot[bot]");
+    assertEquals("bot", githubAccountService.getAssociatedUsername("dependabot[bot]"));
+    assertEquals("bot", githubAccountService.getAssociatedUsername("dependabot[bot]"));
+    verify(connectorService, times(2)).getAssociatedUsername(CONNECTOR_NAME, "dependabot[bot]");
+  }
+
+  @Test
+  void testGetAssociatedUsernameWhileConnecting() {
+    githubAccountService.clearAssociatedUsernames();
+    githubAccountService.clearAssociatedUsername("newUser");
+
+    // The association isn't saved yet when the token is validated
+    assertNull(githubAccountService.getAssociatedUsername("newUser"));
+    assertNull(githubAccountService.getAssociatedUsername("newUser"));
+    verify(connectorService, times(2)).getAssociatedUsername(CONNECTOR_NAME, "newUser");
+
+    when(connectorService.getAssociatedUsername(CONNECTOR_NAME, "newUser")).thenReturn("user");
+    assertEquals("user", githubAccountService.getAssociatedUsername("newUser"));
+    assertEquals("user", githubAccountService.getAssociatedUsername("newUser"));
+    verify(connectorService, times(3)).getAssociatedUsername(CONNECTOR_NAME, "newUser");
+  }
+}
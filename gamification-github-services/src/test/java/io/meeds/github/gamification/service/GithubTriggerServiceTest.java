@@ -0,0 +1,446 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.service;
+
+import static io.meeds.github.gamification.listener.GithubEventsListener.GAMIFICATION_CANCEL_EVENT;
+import static io.meeds.github.gamification.listener.GithubEventsListener.GAMIFICATION_GENERIC_EVENT;
+import static io.meeds.github.gamification.utils.Utils.GITHUB_ACTION_EVENT;
+import static io.meeds.github.gamification.utils.Utils.GITHUB_CANCEL_ACTION_EVENT;
+import static io.meeds.github.gamification.utils.Utils.buildEventDetails;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.exoplatform.commons.ObjectAlreadyExistsException;
+import org.exoplatform.services.listener.ListenerService;
+import org.exoplatform.social.core.identity.model.Identity;
+import org.exoplatform.social.core.manager.IdentityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.meeds.github.gamification.model.Event;
+import io.meeds.github.gamification.model.WebhookContext;
+import io.meeds.github.gamification.model.WebhookDelivery;
+import io.meeds.github.gamification.model.WebhookDeliveryStatus;
+import io.meeds.github.gamification.plugin.GithubTriggerPlugin;
+import io.meeds.github.gamification.services.EventIndexService;
+import io.meeds.github.gamification.services.GithubAccountService;
+import io.meeds.github.gamification.services.RuleIndexService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
+import io.meeds.github.gamification.services.WebhookService;
+import io.meeds.github.gamification.services.impl.GithubTriggerServiceImpl;
+import io.meeds.github.gamification.storage.WebhookDeliveryStorage;
+
+@SpringBootTest(classes = { GithubTriggerServiceImpl.class })
+class GithubTriggerServiceTest {
+
+  private static final long        ID              = 3L;
+
+  private static final long        ORGANIZATION_ID = 1L;
+
+  private static final long        REPOSITORY_ID   = 2L;
+
+  private static final String      DELIVERY_ID     = "72d3162e-cc78-11e3-81ab-4c9367dc0958";
+
+  private static final String      TRIGGER         = "pull_request";
+
+  private static final String      SIGNATURE       = "sha256=signature";
+
+  private static final String      EVENT_NAME      = "creatPullRequest";
+
+  private static final String      CANCEL_EVENT    = "closePullRequest";
+
+  private static final String      PAYLOAD         = """
+      {"action":"opened","organization":{"id":1},"repository":{"id":2},"sender":{"login":"githubUser"}}""";
+
+  private static final long        TIMEOUT         = 5000;
+
+  @MockBean
+  private GithubAccountService     githubAccountService;
+
+  @MockBean
+  private EventIndexService        eventIndexService;
+
+  @MockBean
+  private RuleIndexService         ruleIndexService;
+
+  @MockBean
+  private TriggerEnablementService triggerEnablementService;
+
+  @MockBean
+  private WebhookService           webhookService;
+
+  @MockBean
+  private IdentityManager          identityManager;
+
+  @MockBean
+  private ListenerService          listenerService;
+
+  @MockBean
+  private WebhookDeliveryStorage   webhookDeliveryStorage;
+
+  @Autowired
+  private GithubTriggerServiceImpl githubTriggerService;
+
+  private GithubTriggerPlugin      triggerPlugin;
+
+  @BeforeEach
+  void setup() {
+    triggerPlugin = mock(GithubTriggerPlugin.class);
+    when(triggerPlugin.getName()).thenReturn(TRIGGER);
+    when(triggerPlugin.isActionHandled("opened")).thenReturn(true);
+    githubTriggerService.addPlugin(triggerPlugin);
+    githubTriggerService.start();
+  }
+
+  @AfterEach
+  void teardown() {
+    githubTriggerService.stop();
+    githubTriggerService.removePlugin(TRIGGER);
+  }
+
+  @Test
+  void handleTriggerAsync() throws Exception {
+    mockEvent(EVENT_NAME);
+    mockSaveDelivery();
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+    verify(webhookDeliveryStorage).claimDelivery(eq(ID), anyString());
+    verify(listenerService).broadcast(anyString(), anyMap(), eq(""));
+    verify(webhookDeliveryStorage, never()).retryDelivery(anyLong(), anyInt(), any());
+  }
+
+  @Test
+  void handleTriggerAsyncWithoutDeliveryId() {
+    assertThrows(IllegalArgumentException.class, () -> githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, " ", PAYLOAD));
+    verifyNoInteractions(webhookDeliveryStorage);
+  }
+
+  @Test
+  void handleTriggerAsyncWhenAlreadyProcessed() throws Exception {
+    mockEvent(EVENT_NAME);
+    mockSaveDelivery();
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+
+    // Redelivered GUID dropped without accessing the inbox
+    long duplicates = githubTriggerService.getIngestionStatistics().getDuplicateDeliveries();
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+    verify(webhookDeliveryStorage, times(1)).saveDelivery(any(), any(), any(), any(), any(), any());
+    verify(webhookService, times(1)).verifyWebhookSecret(any());
+    assertEquals(duplicates + 1, githubTriggerService.getIngestionStatistics().getDuplicateDeliveries());
+  }
+
+  @Test
+  void handleTriggerAsyncWhenAlreadyStored() throws Exception {
+    when(webhookService.verifyWebhookSecret(any())).thenReturn(true);
+    when(webhookDeliveryStorage.saveDelivery(eq(DELIVERY_ID),
+                                             eq(TRIGGER),
+                                             eq(SIGNATURE),
+                                             any(),
+                                             anyString(),
+                                             any())).thenThrow(new ObjectAlreadyExistsException(DELIVERY_ID));
+    long duplicates = githubTriggerService.getIngestionStatistics().getDuplicateDeliveries();
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+    assertEquals(duplicates + 1, githubTriggerService.getIngestionStatistics().getDuplicateDeliveries());
+    verify(webhookDeliveryStorage, never()).claimDelivery(anyLong(), anyString());
+  }
+
+  @Test
+  void handleTriggerAsyncWhenNoEventCanBeProduced() throws Exception {
+    long ignored = githubTriggerService.getIngestionStatistics().getIgnoredDeliveries();
+    githubTriggerService.handleTriggerAsync("unknownTrigger", SIGNATURE, DELIVERY_ID, PAYLOAD);
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD.replace("opened", "closed"));
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, """
+        {"action":"opened","repository":{"id":2}}""");
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, "not a json payload");
+
+    assertEquals(ignored + 4, githubTriggerService.getIngestionStatistics().getIgnoredDeliveries());
+    verify(webhookService, never()).verifyWebhookSecret(any());
+    verifyNoInteractions(webhookDeliveryStorage);
+  }
+
+  @Test
+  void handleTriggerAsyncWithInvalidSignature() {
+    when(webhookService.verifyWebhookSecret(any())).thenReturn(false);
+    long invalidSignatures = githubTriggerService.getIngestionStatistics().getInvalidSignatureDeliveries();
+
+    assertThrows(IllegalAccessException.class,
+                 () -> githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD));
+    assertEquals(invalidSignatures + 1, githubTriggerService.getIngestionStatistics().getInvalidSignatureDeliveries());
+    verifyNoInteractions(webhookDeliveryStorage);
+  }
+
+  @Test
+  void handleTriggerAsyncWhenInboxUnavailable() throws Exception {
+    when(webhookService.verifyWebhookSecret(any())).thenReturn(true);
+    when(webhookDeliveryStorage.saveDelivery(any(), any(), any(), any(), any(), any())).thenThrow(new IllegalStateException());
+    long rejected = githubTriggerService.getIngestionStatistics().getRejectedDeliveries();
+
+    assertThrows(RejectedExecutionException.class,
+                 () -> githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD));
+    assertEquals(rejected + 1, githubTriggerService.getIngestionStatistics().getRejectedDeliveries());
+  }
+
+  @Test
+  void handleTriggerAsyncWhenClaimedByAnotherNode() throws Exception {
+    mockEvent(EVENT_NAME);
+    mockSaveDelivery();
+    when(webhookDeliveryStorage.claimDelivery(eq(ID), anyString())).thenReturn(false);
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).claimDelivery(eq(ID), anyString());
+    verify(triggerPlugin, never()).getEvents(any(WebhookContext.class));
+    verify(webhookDeliveryStorage, never()).completeDelivery(anyLong(), anyBoolean());
+  }
+
+  @Test
+  void retryFailedDelivery() throws Exception {
+    mockEvent(EVENT_NAME);
+    mockSaveDelivery();
+    when(webhookService.isWebHookRepositoryEnabled(any())).thenThrow(new IllegalStateException());
+
+    long start = System.currentTimeMillis();
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    ArgumentCaptor<Date> retryDate = ArgumentCaptor.forClass(Date.class);
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).retryDelivery(eq(ID), eq(1), retryDate.capture());
+    long backoff = retryDate.getValue().getTime() - start;
+    assertTrue(backoff >= 60000 && backoff < 65000, "Unexpected first retry delay " + backoff);
+    verify(webhookDeliveryStorage, never()).completeDelivery(anyLong(), anyBoolean());
+    verify(listenerService, never()).broadcast(anyString(), any(), any());
+  }
+
+  @Test
+  void replayPendingDeliveries() throws Exception {
+    mockEvent(EVENT_NAME);
+    when(webhookDeliveryStorage.getPendingDeliveries(any(), anyInt())).thenReturn(List.of(newDelivery(2)));
+    when(webhookDeliveryStorage.leaseDelivery(eq(ID), anyString(), any())).thenReturn(true);
+    when(webhookDeliveryStorage.claimDelivery(eq(ID), anyString())).thenReturn(true);
+
+    githubTriggerService.replayPendingDeliveries();
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+    verify(webhookDeliveryStorage).releaseStaleDeliveries(any());
+    verify(webhookDeliveryStorage).purgeDeliveries(any());
+    verify(listenerService).broadcast(anyString(), anyMap(), eq(""));
+  }
+
+  @Test
+  void replayPendingDeliveriesLeasedByAnotherNode() throws Exception {
+    mockEvent(EVENT_NAME);
+    when(webhookDeliveryStorage.getPendingDeliveries(any(), anyInt())).thenReturn(List.of(newDelivery(0)));
+    when(webhookDeliveryStorage.leaseDelivery(eq(ID), anyString(), any())).thenReturn(false);
+
+    githubTriggerService.replayPendingDeliveries();
+
+    verify(webhookDeliveryStorage, never()).claimDelivery(anyLong(), anyString());
+    verify(webhookDeliveryStorage).purgeDeliveries(any());
+  }
+
+  @Test
+  void replayPendingDeliveryWithBackoff() throws Exception {
+    mockEvent(EVENT_NAME);
+    when(webhookService.isWebHookRepositoryEnabled(any())).thenThrow(new IllegalStateException());
+    when(webhookDeliveryStorage.getPendingDeliveries(any(), anyInt())).thenReturn(List.of(newDelivery(2)));
+    when(webhookDeliveryStorage.leaseDelivery(eq(ID), anyString(), any())).thenReturn(true);
+    when(webhookDeliveryStorage.claimDelivery(eq(ID), anyString())).thenReturn(true);
+
+    long start = System.currentTimeMillis();
+    githubTriggerService.replayPendingDeliveries();
+
+    // Third attempt, the delay of 60s is doubled twice
+    ArgumentCaptor<Date> retryDate = ArgumentCaptor.forClass(Date.class);
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).retryDelivery(eq(ID), eq(3), retryDate.capture());
+    long backoff = retryDate.getValue().getTime() - start;
+    assertTrue(backoff >= 240000 && backoff < 245000, "Unexpected third retry delay " + backoff);
+  }
+
+  @Test
+  void replayPendingDeliveryWhenMaxAttemptsReached() throws Exception {
+    mockEvent(EVENT_NAME);
+    when(webhookService.isWebHookRepositoryEnabled(any())).thenThrow(new IllegalStateException());
+    when(webhookDeliveryStorage.getPendingDeliveries(any(), anyInt())).thenReturn(List.of(newDelivery(4)));
+    when(webhookDeliveryStorage.leaseDelivery(eq(ID), anyString(), any())).thenReturn(true);
+    when(webhookDeliveryStorage.claimDelivery(eq(ID), anyString())).thenReturn(true);
+
+    githubTriggerService.replayPendingDeliveries();
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, false);
+    verify(webhookDeliveryStorage, never()).retryDelivery(anyLong(), anyInt(), any());
+  }
+
+  @Test
+  void dropEventWithoutMatchingRules() throws Exception {
+    mockEvent(EVENT_NAME);
+    mockSaveDelivery();
+    when(ruleIndexService.hasMatchingRules(EVENT_NAME, ORGANIZATION_ID, REPOSITORY_ID)).thenReturn(false);
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+    verify(githubAccountService, never()).getAssociatedUsername(anyString());
+    verify(listenerService, never()).broadcast(anyString(), any(), any());
+  }
+
+  @Test
+  void broadcastCancelEventWithMatchingRules() throws Exception {
+    mockEvent(CANCEL_EVENT);
+    mockSaveDelivery();
+    when(eventIndexService.isEventRegistered(CANCEL_EVENT)).thenReturn(false);
+    when(eventIndexService.getCancelledEventTitles(CANCEL_EVENT)).thenReturn(List.of(EVENT_NAME));
+    when(ruleIndexService.hasMatchingRules(CANCEL_EVENT, ORGANIZATION_ID, REPOSITORY_ID)).thenReturn(false);
+    when(ruleIndexService.hasMatchingRules(EVENT_NAME, ORGANIZATION_ID, REPOSITORY_ID)).thenReturn(true);
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+    verify(listenerService).broadcast(anyString(), anyMap(), eq(""));
+  }
+
+  @Test
+  void broadcastGamificationEventWithDirectDispatch() throws Exception {
+    mockEvent(EVENT_NAME);
+    mockSaveDelivery();
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+    assertGamificationAction(GAMIFICATION_GENERIC_EVENT, EVENT_NAME);
+  }
+
+  @Test
+  void broadcastGithubActionEventWithoutDirectDispatch() throws Exception {
+    ReflectionTestUtils.setField(githubTriggerService, "directDispatch", false);
+    try {
+      mockEvent(EVENT_NAME);
+      mockSaveDelivery();
+
+      githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+      verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+      assertGamificationAction(GITHUB_ACTION_EVENT, EVENT_NAME);
+    } finally {
+      ReflectionTestUtils.setField(githubTriggerService, "directDispatch", true);
+    }
+  }
+
+  @Test
+  void broadcastGamificationCancelEventWithDirectDispatch() throws Exception {
+    mockCancelEvent();
+    mockSaveDelivery();
+
+    githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+    verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+    assertGamificationAction(GAMIFICATION_CANCEL_EVENT, EVENT_NAME);
+  }
+
+  @Test
+  void broadcastGithubCancelActionEventWithoutDirectDispatch() throws Exception {
+    ReflectionTestUtils.setField(githubTriggerService, "directDispatch", false);
+    try {
+      mockCancelEvent();
+      mockSaveDelivery();
+
+      githubTriggerService.handleTriggerAsync(TRIGGER, SIGNATURE, DELIVERY_ID, PAYLOAD);
+
+      verify(webhookDeliveryStorage, timeout(TIMEOUT)).completeDelivery(ID, true);
+      assertGamificationAction(GITHUB_CANCEL_ACTION_EVENT, EVENT_NAME);
+    } finally {
+      ReflectionTestUtils.setField(githubTriggerService, "directDispatch", true);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void assertGamificationAction(String broadcastedEventName, String ruleTitle) throws Exception {
+    ArgumentCaptor<Map<String, String>> gamificationActionCaptor = ArgumentCaptor.forClass(Map.class);
+    verify(listenerService).broadcast(eq(broadcastedEventName), gamificationActionCaptor.capture(), eq(""));
+    Map<String, String> gamificationAction = gamificationActionCaptor.getValue();
+    assertEquals("objectId", gamificationAction.get("objectId"));
+    assertEquals("pullRequest", gamificationAction.get("objectType"));
+    assertEquals(ruleTitle, gamificationAction.get("ruleTitle"));
+    assertEquals("root", gamificationAction.get("senderId"));
+    assertEquals("root", gamificationAction.get("receiverId"));
+    assertEquals(buildEventDetails(String.valueOf(ORGANIZATION_ID), String.valueOf(REPOSITORY_ID)),
+                 gamificationAction.get("eventDetails"));
+  }
+
+  private void mockCancelEvent() {
+    mockEvent(CANCEL_EVENT);
+    when(eventIndexService.isEventRegistered(CANCEL_EVENT)).thenReturn(false);
+    when(eventIndexService.getCancelledEventTitles(CANCEL_EVENT)).thenReturn(List.of(EVENT_NAME));
+    when(ruleIndexService.hasMatchingRules(EVENT_NAME, ORGANIZATION_ID, REPOSITORY_ID)).thenReturn(true);
+  }
+
+  private void mockEvent(String eventName) {
+    Event event = new Event(eventName,
+                            "githubUser",
+                            "githubUser",
+                            "objectId",
+                            "pullRequest",
+                            String.valueOf(ORGANIZATION_ID),
+                            String.valueOf(REPOSITORY_ID));
+    when(triggerPlugin.getEvents(any(WebhookContext.class))).thenReturn(List.of(event));
+    when(webhookService.verifyWebhookSecret(any())).thenReturn(true);
+    when(webhookService.isWebHookRepositoryEnabled(any())).thenReturn(true);
+    when(triggerEnablementService.isTriggerEnabledForAccount(eventName, ORGANIZATION_ID)).thenReturn(true);
+    when(eventIndexService.isEventRegistered(eventName)).thenReturn(true);
+    when(ruleIndexService.hasMatchingRules(eventName, ORGANIZATION_ID, REPOSITORY_ID)).thenReturn(true);
+    when(githubAccountService.getAssociatedUsername("githubUser")).thenReturn("root");
+    when(identityManager.getOrCreateUserIdentity("root")).thenReturn(mock(Identity.class));
+  }
+
+  private void mockSaveDelivery() throws ObjectAlreadyExistsException {
+    when(webhookDeliveryStorage.saveDelivery(eq(DELIVERY_ID),
+                                             eq(TRIGGER),
+                                             eq(SIGNATURE),
+                                             any(),
+                                             anyString(),
+                                             any())).thenReturn(newDelivery(0));
+    when(webhookDeliveryStorage.claimDelivery(eq(ID), anyString())).thenReturn(true);
+  }
+
+  private WebhookDelivery newDelivery(int attempts) {
+    return new WebhookDelivery(ID,
+                               DELIVERY_ID,
+                               TRIGGER,
+                               SIGNATURE,
+                               PAYLOAD.getBytes(StandardCharsets.UTF_8),
+                               WebhookDeliveryStatus.QUEUED,
+                               attempts,
+                               new Date());
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.service;
+
+
+import static io.meeds.github.gamification.utils.Utils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import io.meeds.gamification.model.EventDTO;
+import io.meeds.gamification.model.RuleDTO;
+import io.meeds.gamification.service.RuleService;
+import io.meeds.github.gamification.services.RuleIndexService;
+import io.meeds.github.gamification.services.impl.RuleIndexServiceImpl;
+
+@SpringBootTest(classes = { RuleIndexServiceImpl.class })
+class RuleIndexServiceTest {
+
+  private static final String EVENT_TITLE = "creatPullRequest";
+
+  @MockBean
+  private RuleService         ruleService;
+
+  @Autowired
+  private RuleIndexService    ruleIndexService;
+
+  @Test
+  void testHasMatchingRules() {
+    ruleIndexService.clearRulesIndex();
+    when(ruleService.getRules(any(), anyInt(), anyInt())).thenReturn(List.of(newRule(1L, "10", "100,101"),
+                                                                             newRule(2L, "10", null),
+                                                                             newRule(3L, "20", "100")));
+
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 100L));
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 102L));
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, UNKNOWN_ID));
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 20L, 100L));
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 20L, 101L));
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 30L, 100L));
+    assertFalse(ruleIndexService.hasMatchingRules("pushCode", 10L, 100L));
+    verify(ruleService, times(1)).getRules(any(), anyInt(), anyInt());
+
+    ruleIndexService.updateRule(newRule(3L, "20", "101"));
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 20L, 101L));
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 20L, 100L));
+
+    RuleDTO deletedRule = newRule(2L, "10", null);
+    deletedRule.setDeleted(true);
+    ruleIndexService.updateRule(deletedRule);
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 100L));
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 102L));
+    verify(ruleService, times(1)).getRules(any(), anyInt(), anyInt());
+
+    RuleDTO otherConnectorRule = newRule(4L, "10", null);
+    otherConnectorRule.getEvent().setType("gitlab");
+    ruleIndexService.updateRule(otherConnectorRule);
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 102L));
+
+    RuleDTO movedRule = newRule(1L, "10", "100,101");
+    movedRule.getEvent().setType("gitlab");
+    ruleIndexService.updateRule(movedRule);
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 100L));
+
+    ruleIndexService.clearRulesIndex();
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 10L, 102L));
+    verify(ruleService, times(2)).getRules(any(), anyInt(), anyInt());
+  }
+
+  @Test
+  void testRemoveRule() {
+    ruleIndexService.clearRulesIndex();
+    ruleIndexService.removeRule(5L);
+    when(ruleService.getRules(any(), anyInt(), anyInt())).thenReturn(List.of(newRule(5L, "50", "500"),
+                                                                             newRule(6L, "50", "501")));
+
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 50L, 500L));
+    ruleIndexService.removeRule(5L);
+    assertFalse(ruleIndexService.hasMatchingRules(EVENT_TITLE, 50L, 500L));
+    assertTrue(ruleIndexService.hasMatchingRules(EVENT_TITLE, 50L, 501L));
+    verify(ruleService, times(1)).getRules(any(), anyInt(), anyInt());
+  }
+
+  private RuleDTO newRule(long id, String organizationId, String repositoryIds) {
+    EventDTO eventDTO = new EventDTO();
+    eventDTO.setTitle(EVENT_TITLE);
+    eventDTO.setType(CONNECTOR_NAME);
+    eventDTO.setProperties(repositoryIds == null ? Map.of(ORGANIZATION_ID, organizationId)
+                                                 : Map.of(ORGANIZATION_ID, organizationId, REPOSITORY_IDS, repositoryIds));
+    RuleDTO rule = new RuleDTO();
+    rule.setId(id);
+    rule.setEvent(eventDTO);
+    return rule;
+  }
+}
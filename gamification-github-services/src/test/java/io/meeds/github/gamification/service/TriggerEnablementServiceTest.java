@@ -0,0 +1,103 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.service;
+
+
+import static io.meeds.github.gamification.services.CacheInvalidationService.TRIGGER_CACHE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.meeds.gamification.service.TriggerService;
+import io.meeds.github.gamification.services.CacheInvalidationService;
+import io.meeds.github.gamification.services.TriggerEnablementService;
+import io.meeds.github.gamification.services.impl.TriggerEnablementServiceImpl;
+
+@SpringBootTest(classes = { TriggerEnablementServiceImpl.class })
+class TriggerEnablementServiceTest {
+
+  private static final String      TRIGGER = "pullRequestValidated";
+
+  @MockBean
+  private TriggerService           triggerService;
+
+  @MockBean
+  private CacheInvalidationService cacheInvalidationService;
+
+  @Autowired
+  private TriggerEnablementService triggerEnablementService;
+
+  @Test
+  void testIsTriggerEnabledForAccount() {
+    when(triggerService.isTriggerEnabledForAccount(TRIGGER, 1L)).thenReturn(true);
+
+    assertTrue(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 1L));
+    assertTrue(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 1L));
+    assertFalse(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 2L));
+    verify(triggerService, times(1)).isTriggerEnabledForAccount(TRIGGER, 1L);
+    verify(triggerService, times(1)).isTriggerEnabledForAccount(TRIGGER, 2L);
+  }
+
+  @Test
+  void testTriggerEnablementExpiry() {
+    when(triggerService.isTriggerEnabledForAccount(TRIGGER, 3L)).thenReturn(true, false);
+    long ttl = (long) ReflectionTestUtils.getField(triggerEnablementService, "ttl");
+    ReflectionTestUtils.setField(triggerEnablementService, "ttl", -1L);
+    try {
+      assertTrue(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 3L));
+      assertFalse(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 3L));
+      verify(triggerService, times(2)).isTriggerEnabledForAccount(TRIGGER, 3L);
+    } finally {
+      ReflectionTestUtils.setField(triggerEnablementService, "ttl", ttl);
+    }
+  }
+
+  @Test
+  void testRefreshTriggerEnablement() throws Exception {
+    when(triggerService.isTriggerEnabledForAccount(TRIGGER, 4L)).thenReturn(true, false);
+    assertTrue(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 4L));
+
+    assertThrows(IllegalAccessException.class, () -> triggerEnablementService.refreshTriggerEnablement(TRIGGER, 4L, "user"));
+    assertTrue(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 4L));
+    verify(cacheInvalidationService, never()).invalidate(anyString(), anyString());
+
+    triggerEnablementService.refreshTriggerEnablement(TRIGGER, 4L, "root");
+    assertFalse(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 4L));
+    verify(triggerService, times(2)).isTriggerEnabledForAccount(TRIGGER, 4L);
+    verify(cacheInvalidationService, times(1)).invalidate(TRIGGER_CACHE, "4:" + TRIGGER);
+  }
+
+  @Test
+  void testClearTriggerEnablement() {
+    when(triggerService.isTriggerEnabledForAccount(TRIGGER, 5L)).thenReturn(false, true);
+    assertFalse(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 5L));
+
+    // Changed on another node of the cluster
+    triggerEnablementService.clearTriggerEnablement(TRIGGER, 5L);
+    triggerEnablementService.clearTriggerEnablement("unknownTrigger", 5L);
+    assertTrue(triggerEnablementService.isTriggerEnabledForAccount(TRIGGER, 5L));
+    verify(triggerService, times(2)).isTriggerEnabledForAccount(TRIGGER, 5L);
+    verify(cacheInvalidationService, never()).invalidate(anyString(), anyString());
+  }
+}
@@ -17,22 +17,37 @@
  */
 package io.meeds.github.gamification.service;
 
+import static io.meeds.github.gamification.services.CacheInvalidationService.REPOSITORY_STATUS_CACHE;
+import static io.meeds.github.gamification.services.CacheInvalidationService.WEBHOOK_CACHE;
 import static io.meeds.github.gamification.utils.Utils.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import io.meeds.gamification.model.filter.RuleFilter;
 import io.meeds.gamification.service.RuleService;
 import io.meeds.github.gamification.model.RemoteOrganization;
 import io.meeds.github.gamification.model.TokenStatus;
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.model.WebhookContext;
+import io.meeds.github.gamification.model.WebhookRegistration;
+import io.meeds.github.gamification.services.CacheInvalidationService;
 import io.meeds.github.gamification.services.GithubConsumerService;
 import io.meeds.github.gamification.services.WebhookService;
 import io.meeds.github.gamification.services.impl.WebhookServiceImpl;
+import io.meeds.github.gamification.storage.RepositoryStatusStorage;
 import io.meeds.github.gamification.storage.WebHookStorage;
 import org.exoplatform.commons.ObjectAlreadyExistsException;
 import org.exoplatform.commons.api.settings.SettingService;
+import org.exoplatform.commons.api.settings.SettingValue;
 import org.exoplatform.commons.api.settings.data.Context;
 import org.exoplatform.commons.api.settings.data.Scope;
 import org.exoplatform.commons.exception.ObjectNotFoundException;
@@ -63,6 +78,12 @@ class WebhookServiceTest {
   @MockBean
   private SettingService        settingService;
 
+  @MockBean
+  private RepositoryStatusStorage repositoryStatusStorage;
+
+  @MockBean
+  private CacheInvalidationService cacheInvalidationService;
+
   @Autowired
   private WebhookService        webhookService;
 
@@ -170,6 +191,7 @@ class WebhookServiceTest {
 
     webhookService.deleteWebhook(124L, ADMIN_USER);
     verify(webHookStorage, times(1)).deleteWebHook(124L);
+    verify(cacheInvalidationService, times(1)).invalidate(WEBHOOK_CACHE, "124");
     RuleFilter ruleFilter = new RuleFilter(true);
     ruleFilter.setEventType(CONNECTOR_NAME);
     ruleFilter.setIncludeDeleted(true);
@@ -177,11 +199,37 @@ class WebhookServiceTest {
   }
 
   @Test
-  void testVerifyWebhookSecret() {
+  void testVerifyWebhookSecret() throws Exception {
     String payload = "{\"organization\":{\"id\":\"14524\"},\"repository\":{\"id\":\"555564545\"}}";
+    when(webHookStorage.getWebhookRegistration(14524L)).thenReturn(new WebhookRegistration(14524L, "secret", true));
+
+    Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+    mac.init(new SecretKeySpec("secret".getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+    String signature = SHA256_SIGNATURE_PREFIX + HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
 
-    when(webHookStorage.getWebhookByOrganizationId(14524L)).thenReturn(null);
     assertFalse(webhookService.verifyWebhookSecret(payload, "signature"));
+    assertTrue(webhookService.verifyWebhookSecret(payload, signature));
+    assertFalse(webhookService.verifyWebhookSecret(payload.replace("14524", "14525"), signature));
+    verify(webHookStorage, never()).getWebhookByOrganizationId(anyLong());
+  }
+
+  @Test
+  void testVerifyWebhookSecretFromContext() throws Exception {
+    String payload = "{\"organization\":{\"id\":\"14600\"},\"repository\":{\"id\":\"555564545\"}}";
+    when(webHookStorage.getWebhookRegistration(14600L)).thenReturn(new WebhookRegistration(14600L, "secret", true));
+    when(repositoryStatusStorage.getDisabledRepositoryIds(14600L)).thenReturn(List.of(555564545L));
+
+    Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+    mac.init(new SecretKeySpec("secret".getBytes(StandardCharsets.UTF_8), HMAC_SHA256_ALGORITHM));
+    String signature = SHA256_SIGNATURE_PREFIX + HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+
+    // The same delivery context is shared by the signature check and the
+    // repository filter
+    WebhookContext webhookContext = new WebhookContext("push", signature, payload.getBytes(StandardCharsets.UTF_8));
+    assertTrue(webhookService.verifyWebhookSecret(webhookContext));
+    assertFalse(webhookService.isWebHookRepositoryEnabled(webhookContext));
+    assertFalse(webhookService.verifyWebhookSecret(new WebhookContext("push", "sha256=forged", payload)));
+    assertFalse(webhookService.verifyWebhookSecret(new WebhookContext("push", signature, "{}")));
   }
 
   @Test
@@ -198,12 +246,88 @@ class WebhookServiceTest {
     assertEquals("The user is not authorized to update repository status", exception.getMessage());
 
     webhookService.setWebHookRepositoryEnabled(14524L, 555564545L, false, ADMIN_USER);
-    verify(settingService, times(2)).get(Context.GLOBAL.id("githubWebhook"), Scope.APPLICATION.id("disabledRepos"), "14524");
-    verify(settingService, times(1)).set(any(), any(), anyString(), any());
+    verify(repositoryStatusStorage, times(1)).getDisabledRepositoryIds(14524L);
+    verify(repositoryStatusStorage, times(1)).setRepositoriesEnabled(14524L, List.of(555564545L), false);
 
-    webhookService.isWebHookRepositoryEnabled(payload);
+    // Disabled repositories are reloaded from database after a status change
+    when(repositoryStatusStorage.getDisabledRepositoryIds(14524L)).thenReturn(List.of(555564545L));
+    assertFalse(webhookService.isWebHookRepositoryEnabled(payload));
+    assertTrue(webhookService.isWebHookRepositoryEnabled(14524L, 555564546L));
+    verify(repositoryStatusStorage, times(2)).getDisabledRepositoryIds(14524L);
 
+    webhookService.setWebHookRepositoryEnabled(14524L, 555564545L, true, ADMIN_USER);
+    when(repositoryStatusStorage.getDisabledRepositoryIds(14524L)).thenReturn(List.of());
+    assertTrue(webhookService.isWebHookRepositoryEnabled(payload));
+    verify(repositoryStatusStorage, times(1)).setRepositoriesEnabled(14524L, List.of(555564545L), true);
+
+    webhookService.setWebHookRepositoriesEnabled(14524L, List.of(1L, 2L), false, ADMIN_USER);
+    when(repositoryStatusStorage.getDisabledRepositoryIds(14524L)).thenReturn(List.of(1L, 2L));
+    assertFalse(webhookService.isWebHookRepositoryEnabled(14524L, 1L));
+    assertFalse(webhookService.isWebHookRepositoryEnabled(14524L, 2L));
+    verify(repositoryStatusStorage, times(1)).setRepositoriesEnabled(14524L, List.of(1L, 2L), false);
+    verify(cacheInvalidationService, times(3)).invalidate(REPOSITORY_STATUS_CACHE, "14524");
+    verify(repositoryStatusStorage, times(4)).getDisabledRepositoryIds(14524L);
+
+    // Modified by another node of the cluster
+    when(repositoryStatusStorage.getDisabledRepositoryIds(14524L)).thenReturn(List.of());
+    webhookService.clearRepositoriesStatusCache(14524L);
+    assertTrue(webhookService.isWebHookRepositoryEnabled(14524L, 1L));
+    verify(repositoryStatusStorage, times(5)).getDisabledRepositoryIds(14524L);
+
+    // Statuses of an organization which isn't cached are loaded on next read
     webhookService.setWebHookRepositoryEnabled(145211L, 555564545L, true, ADMIN_USER);
+    verify(settingService, never()).get(Context.GLOBAL.id("githubWebhook"), Scope.APPLICATION.id("disabledRepos"), "145211");
+    assertTrue(webhookService.isWebHookRepositoryEnabled(145211L, 555564545L));
     verify(settingService, times(1)).get(Context.GLOBAL.id("githubWebhook"), Scope.APPLICATION.id("disabledRepos"), "145211");
   }
+
+  @Test
+  void testRepositoryStatusChangedWhileLoading() {
+    AtomicBoolean changed = new AtomicBoolean();
+    when(repositoryStatusStorage.getDisabledRepositoryIds(14700L)).thenAnswer(invocation -> {
+      if (changed.compareAndSet(false, true)) {
+        // Disabled by another thread once the statuses were read
+        webhookService.setWebHookRepositoryEnabled(14700L, 1L, false, ADMIN_USER);
+        return List.of();
+      }
+      return List.of(1L);
+    });
+
+    assertTrue(webhookService.isWebHookRepositoryEnabled(14700L, 1L));
+    // The stale statuses aren't kept in cache
+    assertFalse(webhookService.isWebHookRepositoryEnabled(14700L, 1L));
+    assertFalse(webhookService.isWebHookRepositoryEnabled(14700L, 1L));
+    verify(repositoryStatusStorage, times(2)).getDisabledRepositoryIds(14700L);
+  }
+
+  @Test
+  void testMigrateDisabledRepositoriesSetting() {
+    when(settingService.get(Context.GLOBAL.id("githubWebhook"),
+                            Scope.APPLICATION.id("disabledRepos"),
+                            "777")).thenAnswer(invocation -> SettingValue.create("1:2"));
+    when(repositoryStatusStorage.getDisabledRepositoryIds(777L)).thenReturn(List.of(1L, 2L));
+
+    assertFalse(webhookService.isWebHookRepositoryEnabled(777L, 1L));
+    assertTrue(webhookService.isWebHookRepositoryEnabled(777L, 3L));
+    verify(repositoryStatusStorage, times(1)).setRepositoriesEnabled(777L, List.of(1L, 2L), false);
+    verify(settingService, times(1)).remove(Context.GLOBAL.id("githubWebhook"), Scope.APPLICATION.id("disabledRepos"), "777");
+  }
+
+  @Test
+  void testClearWebhookCaches() {
+    WebHook webHook = new WebHook();
+    webHook.setOrganizationId(888L);
+    webHook.setOrganizationName("meeds-io");
+    webHook.setToken("accessToken");
+    when(webHookStorage.getWebhookByOrganizationId(888L)).thenReturn(webHook);
+
+    webhookService.clearWebhookCaches(888L);
+    verify(webHookStorage, times(1)).refreshWebhookRegistration(888L);
+    verify(webHookStorage, never()).clearWebhookRegistrations();
+    verify(githubConsumerService, times(1)).clearCaches(888L, "meeds-io", "accessToken");
+    verify(githubConsumerService, never()).clearCaches();
+
+    webhookService.clearWebhookCaches(999L);
+    verify(githubConsumerService, times(1)).clearCaches(999L, null, null);
+  }
 }
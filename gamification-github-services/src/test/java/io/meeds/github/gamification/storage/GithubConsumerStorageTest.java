@@ -0,0 +1,192 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.meeds.github.gamification.exception.GithubRateLimitException;
+import io.meeds.github.gamification.model.TokenStatus;
+import io.meeds.github.gamification.model.WebHook;
+
+@SpringBootTest(classes = { GithubConsumerStorage.class })
+class GithubConsumerStorageTest {
+
+  private static final String   TOKEN   = "accessToken";
+
+  private static final String   WEBHOOK = "{\"id\":2}";
+
+  private static final long     RESET   = System.currentTimeMillis() / 1000 + 3600;
+
+  @Autowired
+  private GithubConsumerStorage githubConsumerStorage;
+
+  private HttpClient            httpClient;
+
+  @BeforeEach
+  void setUp() {
+    httpClient = mock(HttpClient.class);
+    ReflectionTestUtils.setField(githubConsumerStorage, "client", httpClient);
+    githubConsumerStorage.clearCaches();
+  }
+
+  @Test
+  void forceUpdateWebhookWithConditionalRequest() throws Exception {
+    when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(newResponse(200, WEBHOOK, "\"etag\""),
+                                                                  newResponse(304, null, null));
+
+    assertEquals(WEBHOOK, githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+    assertEquals(WEBHOOK, githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+
+    List<HttpUriRequest> requests = captureRequests(2);
+    assertNull(requests.get(0).getFirstHeader("If-None-Match"));
+    assertEquals("\"etag\"", requests.get(1).getFirstHeader("If-None-Match").getValue());
+
+    Map<String, ?> cachedResponses = getCachedResponses();
+    assertEquals(1, cachedResponses.size());
+    assertTrue(cachedResponses.keySet().stream().noneMatch(key -> key.contains(TOKEN)));
+  }
+
+  @Test
+  void forceUpdateWebhookEvictsResponseOnError() throws Exception {
+    when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(newResponse(200, WEBHOOK, "\"etag\""),
+                                                                  newResponse(500, "Server error", null),
+                                                                  newResponse(200, WEBHOOK, null));
+
+    assertEquals(WEBHOOK, githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+    assertThrows(IllegalStateException.class, () -> githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+    assertTrue(getCachedResponses().isEmpty());
+    assertEquals(WEBHOOK, githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+
+    List<HttpUriRequest> requests = captureRequests(3);
+    assertNotNull(requests.get(1).getFirstHeader("If-None-Match"));
+    assertNull(requests.get(2).getFirstHeader("If-None-Match"));
+  }
+
+  @Test
+  void forceUpdateWebhookBoundsCachedResponsesSize() throws Exception {
+    ReflectionTestUtils.setField(githubConsumerStorage, "conditionalCacheMaxSize", 10L);
+    try {
+      when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(newResponse(200, "{\"id\":2,\"name\":\"web\"}", "\"etag\""));
+      githubConsumerStorage.forceUpdateWebhook(newWebHook());
+      assertTrue(getCachedResponses().isEmpty());
+    } finally {
+      ReflectionTestUtils.setField(githubConsumerStorage, "conditionalCacheMaxSize", 1048576L);
+    }
+  }
+
+  @Test
+  void checkGitHubTokenStatusFromTrackedRateLimit() throws Exception {
+    when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(withRateLimit(newResponse(200, WEBHOOK, null), 4000));
+
+    githubConsumerStorage.forceUpdateWebhook(newWebHook());
+    TokenStatus tokenStatus = githubConsumerStorage.checkGitHubTokenStatus(TOKEN);
+    assertTrue(tokenStatus.isValid());
+    assertEquals(4000L, tokenStatus.getRemaining());
+    assertEquals(RESET, tokenStatus.getReset());
+    // No call to rate_limit endpoint
+    verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+  }
+
+  @Test
+  void checkGitHubTokenStatusNotTrackedFromErrorResponse() throws Exception {
+    when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(withRateLimit(newResponse(403, "Forbidden", null), 4000),
+                                                                  newResponse(401, "Bad credentials", null));
+
+    assertThrows(IllegalStateException.class, () -> githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+    TokenStatus tokenStatus = githubConsumerStorage.checkGitHubTokenStatus(TOKEN);
+    assertFalse(tokenStatus.isValid());
+
+    List<HttpUriRequest> requests = captureRequests(2);
+    assertTrue(requests.get(1).getURI().toString().endsWith("/rate_limit"));
+  }
+
+  @Test
+  void deferBackgroundCallsOnSecondaryRateLimit() throws Exception {
+    HttpResponse response = withRateLimit(newResponse(403, "Secondary rate limit", null), 4000);
+    response.setHeader("Retry-After", "60");
+    when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(withRateLimit(newResponse(200, WEBHOOK, null), 4000),
+                                                                  response);
+
+    githubConsumerStorage.forceUpdateWebhook(newWebHook());
+    assertThrows(IllegalStateException.class, () -> githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+    assertThrows(GithubRateLimitException.class, () -> githubConsumerStorage.forceUpdateWebhook(newWebHook()));
+    verify(httpClient, times(2)).execute(any(HttpUriRequest.class));
+
+    // Interactive budget left unchanged
+    TokenStatus tokenStatus = githubConsumerStorage.checkGitHubTokenStatus(TOKEN);
+    assertTrue(tokenStatus.isValid());
+    assertEquals(4000L, tokenStatus.getRemaining());
+  }
+
+  private List<HttpUriRequest> captureRequests(int count) throws Exception {
+    ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+    verify(httpClient, times(count)).execute(requestCaptor.capture());
+    return requestCaptor.getAllValues();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, ?> getCachedResponses() {
+    return (Map<String, ?>) ReflectionTestUtils.getField(githubConsumerStorage, "cachedResponses");
+  }
+
+  private WebHook newWebHook() {
+    WebHook webHook = new WebHook();
+    webHook.setOrganizationId(1L);
+    webHook.setWebhookId(2L);
+    webHook.setToken(TOKEN);
+    return webHook;
+  }
+
+  private HttpResponse withRateLimit(HttpResponse response, long remaining) {
+    response.setHeader("X-RateLimit-Remaining", String.valueOf(remaining));
+    response.setHeader("X-RateLimit-Reset", String.valueOf(RESET));
+    return response;
+  }
+
+  private HttpResponse newResponse(int statusCode, String body, String etag) {
+    BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, null));
+    if (body != null) {
+      response.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+    }
+    if (etag != null) {
+      response.setHeader("ETag", etag);
+    }
+    return response;
+  }
+}
@@ -19,7 +19,10 @@ package io.meeds.github.gamification.storage;
 
 import static org.junit.Assert.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
@@ -30,6 +33,7 @@ import java.util.Optional;
 import io.meeds.github.gamification.dao.WebHookDAO;
 import io.meeds.github.gamification.entity.WebhookEntity;
 import io.meeds.github.gamification.model.WebHook;
+import io.meeds.github.gamification.model.WebhookRegistration;
 import org.exoplatform.commons.api.settings.SettingService;
 import org.exoplatform.web.security.codec.CodecInitializer;
 import org.junit.jupiter.api.BeforeEach;
@@ -43,6 +47,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.exoplatform.commons.ObjectAlreadyExistsException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 @SpringBootTest(classes = { WebHookStorage.class, })
 @ExtendWith(MockitoExtension.class)
@@ -117,6 +123,68 @@ class WebHookStorageTest {
     assertEquals(1L, webHookStorage.countWebhooks());
   }
 
+  @Test
+  void testGetWebhookRegistration() throws Exception {
+    WebHook createdWebHook = webHookStorage.saveWebHook(createWebHookInstance());
+    WebhookEntity webhookEntity = webHookDAO.findById(createdWebHook.getId()).orElseThrow();
+    when(webHookDAO.findAll()).thenReturn(List.of(webhookEntity));
+
+    WebhookRegistration webhookRegistration = webHookStorage.getWebhookRegistration(ORGANIZATION_ID);
+    assertNotNull(webhookRegistration);
+    assertEquals(ORGANIZATION_ID.longValue(), webhookRegistration.getOrganizationId());
+    assertTrue(webhookRegistration.isEnabled());
+    assertNull(webHookStorage.getWebhookRegistration(ORGANIZATION_ID + 1));
+    verify(webHookDAO, times(1)).findAll();
+
+    webHookStorage.updateWebHookAccessToken(createdWebHook.getId(), "newToken");
+    webHookStorage.getWebhookRegistration(ORGANIZATION_ID);
+    verify(webHookDAO, times(2)).findAll();
+
+    when(webHookDAO.findAll()).thenReturn(List.of());
+    webHookStorage.deleteWebHook(ORGANIZATION_ID);
+    assertNull(webHookStorage.getWebhookRegistration(ORGANIZATION_ID));
+  }
+
+  @Test
+  void testRefreshWebhookRegistration() throws Exception {
+    WebHook createdWebHook = webHookStorage.saveWebHook(createWebHookInstance());
+    WebhookEntity webhookEntity = webHookDAO.findById(createdWebHook.getId()).orElseThrow();
+    when(webHookDAO.findAll()).thenReturn(List.of(webhookEntity));
+    assertTrue(webHookStorage.getWebhookRegistration(ORGANIZATION_ID).isEnabled());
+
+    webhookEntity.setEnabled(false);
+    webHookStorage.refreshWebhookRegistration(ORGANIZATION_ID);
+    assertFalse(webHookStorage.getWebhookRegistration(ORGANIZATION_ID).isEnabled());
+
+    when(webHookDAO.findWebhookEntityByOrganizationId(ORGANIZATION_ID)).thenReturn(null);
+    webHookStorage.refreshWebhookRegistration(ORGANIZATION_ID);
+    assertNull(webHookStorage.getWebhookRegistration(ORGANIZATION_ID));
+    // Other organizations registrations aren't reloaded
+    verify(webHookDAO, times(1)).findAll();
+  }
+
+  @Test
+  void testClearWebhookRegistrationAfterCommit() throws Exception {
+    WebHook createdWebHook = webHookStorage.saveWebHook(createWebHookInstance());
+    WebhookEntity webhookEntity = webHookDAO.findById(createdWebHook.getId()).orElseThrow();
+    when(webHookDAO.findAll()).thenReturn(List.of(webhookEntity));
+    webHookStorage.getWebhookRegistration(ORGANIZATION_ID);
+    verify(webHookDAO, times(1)).findAll();
+
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      webHookStorage.updateWebHookAccessToken(createdWebHook.getId(), "newToken");
+      webHookStorage.getWebhookRegistration(ORGANIZATION_ID);
+      verify(webHookDAO, times(1)).findAll();
+
+      TransactionSynchronizationUtils.triggerAfterCommit();
+      webHookStorage.getWebhookRegistration(ORGANIZATION_ID);
+      verify(webHookDAO, times(2)).findAll();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
   protected WebHook createWebHookInstance() {
     return new WebHook(0,
                        1234,
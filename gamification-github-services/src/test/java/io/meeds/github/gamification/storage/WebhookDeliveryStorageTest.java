@@ -0,0 +1,209 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import io.meeds.github.gamification.dao.WebhookDeliveryDAO;
+import io.meeds.github.gamification.entity.WebhookDeliveryEntity;
+import io.meeds.github.gamification.model.WebhookDelivery;
+import io.meeds.github.gamification.model.WebhookDeliveryStatus;
+import org.exoplatform.commons.ObjectAlreadyExistsException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+
+@SpringBootTest(classes = { WebhookDeliveryStorage.class, })
+@ExtendWith(MockitoExtension.class)
+class WebhookDeliveryStorageTest {
+
+  private static final long      ID      = 3L;
+
+  private static final String    NODE_ID = "nodeId";
+
+  private static final byte[]    PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+  @Autowired
+  private WebhookDeliveryStorage webhookDeliveryStorage;
+
+  @MockBean
+  private WebhookDeliveryDAO     webhookDeliveryDAO;
+
+  @Test
+  void saveDelivery() throws ObjectAlreadyExistsException {
+    when(webhookDeliveryDAO.save(any())).thenAnswer(invocation -> {
+      WebhookDeliveryEntity entity = invocation.getArgument(0);
+      entity.setId(ID);
+      return entity;
+    });
+    Date leaseExpiryDate = new Date(System.currentTimeMillis() + 120000);
+    WebhookDelivery delivery = webhookDeliveryStorage.saveDelivery("deliveryId",
+                                                                   "push",
+                                                                   "sha1=signature",
+                                                                   PAYLOAD,
+                                                                   NODE_ID,
+                                                                   leaseExpiryDate);
+    assertEquals(ID, delivery.getId());
+    assertEquals("deliveryId", delivery.getDeliveryId());
+    assertEquals("push", delivery.getEvent());
+    assertEquals("sha1=signature", delivery.getSignature());
+    assertArrayEquals(PAYLOAD, delivery.getPayload());
+    assertEquals(WebhookDeliveryStatus.QUEUED, delivery.getStatus());
+    assertNotNull(delivery.getCreatedDate());
+    verify(webhookDeliveryDAO).save(argThat(entity -> NODE_ID.equals(entity.getNodeId())
+        && leaseExpiryDate.equals(entity.getLeaseExpiryDate())));
+  }
+
+  @Test
+  void saveDuplicatedDelivery() {
+    WebhookDeliveryEntity existingEntity = new WebhookDeliveryEntity();
+    existingEntity.setId(ID);
+    existingEntity.setDeliveryId("deliveryId");
+    when(webhookDeliveryDAO.findByDeliveryId("deliveryId")).thenReturn(existingEntity);
+    assertThrows(ObjectAlreadyExistsException.class,
+                 () -> webhookDeliveryStorage.saveDelivery("deliveryId", "push", "sha1=signature", PAYLOAD, NODE_ID, new Date()));
+    verify(webhookDeliveryDAO, never()).save(any());
+
+    when(webhookDeliveryDAO.save(any())).thenThrow(new DataIntegrityViolationException("UK_GITHUB_WEBHOOK_DELIVERIES_01"));
+    assertThrows(ObjectAlreadyExistsException.class,
+                 () -> webhookDeliveryStorage.saveDelivery("otherDeliveryId",
+                                                           "push",
+                                                           "sha1=signature",
+                                                           PAYLOAD,
+                                                           NODE_ID,
+                                                           new Date()));
+  }
+
+  @Test
+  void saveFailedDelivery() throws ObjectAlreadyExistsException {
+    WebhookDeliveryEntity failedEntity = new WebhookDeliveryEntity();
+    failedEntity.setId(ID);
+    failedEntity.setDeliveryId("deliveryId");
+    failedEntity.setEvent("push");
+    failedEntity.setPayload(PAYLOAD);
+    failedEntity.setStatus(WebhookDeliveryStatus.FAILED);
+    failedEntity.setAttempts(5);
+    when(webhookDeliveryDAO.findByDeliveryId("deliveryId")).thenReturn(failedEntity);
+    Date leaseExpiryDate = new Date(System.currentTimeMillis() + 120000);
+    when(webhookDeliveryDAO.requeue(eq(ID),
+                                    eq(WebhookDeliveryStatus.FAILED),
+                                    eq(WebhookDeliveryStatus.QUEUED),
+                                    eq(NODE_ID),
+                                    eq(leaseExpiryDate),
+                                    any())).thenReturn(1);
+
+    WebhookDelivery delivery = webhookDeliveryStorage.saveDelivery("deliveryId",
+                                                                   "push",
+                                                                   "sha1=signature",
+                                                                   PAYLOAD,
+                                                                   NODE_ID,
+                                                                   leaseExpiryDate);
+    assertEquals(ID, delivery.getId());
+    assertEquals(WebhookDeliveryStatus.QUEUED, delivery.getStatus());
+    assertEquals(0, delivery.getAttempts());
+    verify(webhookDeliveryDAO, never()).save(any());
+  }
+
+  @Test
+  void claimDelivery() {
+    when(webhookDeliveryDAO.updateStatus(eq(ID),
+                                         eq(NODE_ID),
+                                         eq(WebhookDeliveryStatus.QUEUED),
+                                         eq(WebhookDeliveryStatus.PROCESSING),
+                                         any())).thenReturn(1, 0);
+    assertTrue(webhookDeliveryStorage.claimDelivery(ID, NODE_ID));
+    assertFalse(webhookDeliveryStorage.claimDelivery(ID, NODE_ID));
+  }
+
+  @Test
+  void completeDelivery() {
+    webhookDeliveryStorage.completeDelivery(ID, true);
+    verify(webhookDeliveryDAO).updateStatus(eq(ID),
+                                            eq(WebhookDeliveryStatus.PROCESSING),
+                                            eq(WebhookDeliveryStatus.DONE),
+                                            any());
+    webhookDeliveryStorage.completeDelivery(ID, false);
+    verify(webhookDeliveryDAO).updateStatus(eq(ID),
+                                            eq(WebhookDeliveryStatus.PROCESSING),
+                                            eq(WebhookDeliveryStatus.FAILED),
+                                            any());
+  }
+
+  @Test
+  void retryDelivery() {
+    Date retryDate = new Date(System.currentTimeMillis() + 60000);
+    webhookDeliveryStorage.retryDelivery(ID, 2, retryDate);
+    verify(webhookDeliveryDAO).updateAttempts(eq(ID),
+                                              eq(WebhookDeliveryStatus.PROCESSING),
+                                              eq(WebhookDeliveryStatus.PENDING),
+                                              eq(2),
+                                              eq(retryDate),
+                                              any());
+  }
+
+  @Test
+  void getPendingDeliveries() {
+    WebhookDeliveryEntity entity = new WebhookDeliveryEntity();
+    entity.setId(ID);
+    entity.setEvent("push");
+    entity.setPayload(PAYLOAD);
+    entity.setStatus(WebhookDeliveryStatus.PENDING);
+    Date now = new Date();
+    when(webhookDeliveryDAO.findByLeaseExpired(eq(List.of(WebhookDeliveryStatus.PENDING, WebhookDeliveryStatus.QUEUED)),
+                                               eq(now),
+                                               any())).thenReturn(List.of(entity));
+    List<WebhookDelivery> deliveries = webhookDeliveryStorage.getPendingDeliveries(now, 10);
+    assertEquals(1, deliveries.size());
+    assertEquals(ID, deliveries.get(0).getId());
+  }
+
+  @Test
+  void leaseDelivery() {
+    Date leaseExpiryDate = new Date(System.currentTimeMillis() + 120000);
+    when(webhookDeliveryDAO.acquireLease(eq(ID),
+                                         eq(List.of(WebhookDeliveryStatus.PENDING, WebhookDeliveryStatus.QUEUED)),
+                                         eq(WebhookDeliveryStatus.QUEUED),
+                                         eq(NODE_ID),
+                                         eq(leaseExpiryDate),
+                                         any())).thenReturn(1, 0);
+    assertTrue(webhookDeliveryStorage.leaseDelivery(ID, NODE_ID, leaseExpiryDate));
+    assertFalse(webhookDeliveryStorage.leaseDelivery(ID, NODE_ID, leaseExpiryDate));
+  }
+
+  @Test
+  void renewLeases() {
+    Date leaseExpiryDate = new Date(System.currentTimeMillis() + 120000);
+    List<Long> ids = LongStream.range(0, 1200).boxed().toList();
+    webhookDeliveryStorage.renewLeases(ids, NODE_ID, leaseExpiryDate);
+    verify(webhookDeliveryDAO, times(3)).renewLeases(anyCollection(),
+                                                     eq(WebhookDeliveryStatus.QUEUED),
+                                                     eq(NODE_ID),
+                                                     eq(leaseExpiryDate));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.storage.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache.ValueRetrievalException;
+
+import io.meeds.github.gamification.model.CacheStatistics;
+
+class BoundedCacheTest {
+
+  @Test
+  void evictLeastRecentlyUsed() {
+    BoundedCache cache = new BoundedCache("test", 2, 60);
+    cache.put("key1", "value1");
+    cache.put("key2", "value2");
+    assertEquals("value1", cache.get("key1", String.class));
+    cache.put("key3", "value3");
+    assertNull(cache.get("key2"));
+    assertNotNull(cache.get("key1"));
+    assertNotNull(cache.get("key3"));
+
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals("test", statistics.getName());
+    assertEquals(2, statistics.getMaxSize());
+    assertEquals(2, statistics.getSize());
+    assertEquals(3, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(1, statistics.getEvictionCount());
+    assertEquals(0.75, statistics.getHitRate());
+  }
+
+  @Test
+  void expireAfterWrite() {
+    BoundedCache cache = new BoundedCache("test", 10, 0);
+    cache.put("key", "value");
+    assertNull(cache.get("key"));
+    assertEquals("loaded", cache.get("key", () -> "loaded"));
+    assertEquals(1, cache.getStatistics().getEvictionCount());
+  }
+
+  @Test
+  void cacheNullValues() {
+    BoundedCache cache = new BoundedCache("test", 10, 60);
+    cache.put("key", null);
+    assertNotNull(cache.get("key"));
+    assertNull(cache.get("key").get());
+    cache.evict("key");
+    assertNull(cache.get("key"));
+  }
+
+  @Test
+  void evictMatchingKeys() {
+    BoundedCache cache = new BoundedCache("test", 10, 60);
+    cache.put("org1#1", "value1");
+    cache.put("org1#2", "value2");
+    cache.put("org2#1", "value3");
+    cache.evictIf(key -> ((String) key).startsWith("org1#"));
+    assertNull(cache.get("org1#1"));
+    assertNull(cache.get("org1#2"));
+    assertNotNull(cache.get("org2#1"));
+  }
+
+  @Test
+  void loadOncePerKey() throws Exception {
+    BoundedCache cache = new BoundedCache("test", 10, 60);
+    AtomicInteger loadCount = new AtomicInteger();
+    CountDownLatch loadingLatch = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      Future<?>[] results = new Future<?>[4];
+      for (int i = 0; i < results.length; i++) {
+        results[i] = executorService.submit(() -> cache.get("key", () -> {
+          loadCount.incrementAndGet();
+          loadingLatch.await();
+          return "loaded";
+        }));
+      }
+      // Let concurrent callers reach the cache while the value is loading
+      Thread.sleep(100);
+      loadingLatch.countDown();
+      for (Future<?> result : results) {
+        assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+    assertEquals(1, loadCount.get());
+    assertEquals("loaded", cache.get("key", () -> "reloaded"));
+  }
+
+  @Test
+  void loadFailure() {
+    BoundedCache cache = new BoundedCache("test", 10, 60);
+    assertThrows(ValueRetrievalException.class, () -> cache.get("key", () -> {
+      throw new IllegalStateException("GitHub unavailable");
+    }));
+    assertNull(cache.get("key"));
+    assertEquals("loaded", cache.get("key", () -> "loaded"));
+  }
+}
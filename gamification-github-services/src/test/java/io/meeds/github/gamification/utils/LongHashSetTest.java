@@ -0,0 +1,64 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+  @Test
+  void addContainsRemove() {
+    LongHashSet set = new LongHashSet();
+    for (long i = -50; i < 1000; i++) {
+      assertTrue(set.add(i * 31));
+    }
+    assertFalse(set.add(0));
+    assertEquals(1050, set.size());
+    for (long i = -50; i < 1000; i++) {
+      assertTrue(set.contains(i * 31));
+      assertFalse(set.contains(i * 31 + 1));
+    }
+    for (long i = -50; i < 1000; i += 2) {
+      assertTrue(set.remove(i * 31));
+    }
+    assertFalse(set.remove(-50L * 31));
+    for (long i = -50; i < 1000; i++) {
+      assertEquals(i % 2 != 0, set.contains(i * 31));
+    }
+    assertEquals(525, set.size());
+  }
+
+  @Test
+  void copyAndJoin() {
+    LongHashSet set = new LongHashSet();
+    set.add(5);
+    set.add(3);
+    LongHashSet copy = set.copy();
+    copy.add(7);
+    assertFalse(set.contains(7));
+    assertTrue(copy.contains(7));
+    long[] values = set.toArray();
+    Arrays.sort(values);
+    assertArrayEquals(new long[] { 3, 5 }, values);
+    assertEquals("", new LongHashSet().join(":"));
+  }
+}
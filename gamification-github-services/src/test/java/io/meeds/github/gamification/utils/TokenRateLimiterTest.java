@@ -0,0 +1,119 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2023 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TokenRateLimiterTest {
+
+  private static final String TOKEN = "token";
+
+  @Test
+  void acquireWithoutBudget() {
+    TokenRateLimiter rateLimiter = new TokenRateLimiter(2, 10);
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+    assertNull(rateLimiter.getRemaining(TOKEN));
+    assertNull(rateLimiter.getReset(TOKEN));
+  }
+
+  @Test
+  void reserveHeadroomForInteractiveCalls() {
+    TokenRateLimiter rateLimiter = new TokenRateLimiter(10, 10);
+    long reset = System.currentTimeMillis() / 1000 + 3600;
+    rateLimiter.update(TOKEN, 12, reset);
+    assertEquals(12, rateLimiter.getRemaining(TOKEN));
+    assertEquals(reset, rateLimiter.getReset(TOKEN));
+
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+    assertFalse(rateLimiter.acquire(TOKEN, true));
+    assertEquals(10, rateLimiter.getRemaining(TOKEN));
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(rateLimiter.acquire(TOKEN, false));
+    }
+    assertFalse(rateLimiter.acquire(TOKEN, false));
+    assertEquals(0, rateLimiter.getRemaining(TOKEN));
+
+    rateLimiter.remove(TOKEN);
+    assertTrue(rateLimiter.acquire(TOKEN, false));
+  }
+
+  @Test
+  void paceBackgroundCalls() throws InterruptedException {
+    TokenRateLimiter rateLimiter = new TokenRateLimiter(1, 0);
+    // 20 requests for the next one to two seconds: one request each 50 to
+    // 100ms
+    rateLimiter.update(TOKEN, 20, System.currentTimeMillis() / 1000 + 2);
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+    // Deferred without blocking the calling thread
+    long start = System.currentTimeMillis();
+    assertFalse(rateLimiter.acquire(TOKEN, true));
+    assertTrue(System.currentTimeMillis() - start < 40);
+    Thread.sleep(120);
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+
+    rateLimiter = new TokenRateLimiter(1, 0);
+    // 2 requests for the next hour
+    rateLimiter.update(TOKEN, 2, System.currentTimeMillis() / 1000 + 3600);
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+    assertFalse(rateLimiter.acquire(TOKEN, true));
+    assertTrue(rateLimiter.acquire(TOKEN, false));
+  }
+
+  @Test
+  void deferBackgroundCallsOnSecondaryLimit() {
+    TokenRateLimiter rateLimiter = new TokenRateLimiter(10, 10);
+    long reset = System.currentTimeMillis() / 1000 + 3600;
+    rateLimiter.update(TOKEN, 100, reset);
+    rateLimiter.updateSecondaryLimit(TOKEN, System.currentTimeMillis() / 1000 + 60);
+
+    assertFalse(rateLimiter.acquire(TOKEN, true));
+    assertTrue(rateLimiter.acquire(TOKEN, false));
+    assertEquals(99, rateLimiter.getRemaining(TOKEN));
+    assertEquals(reset, rateLimiter.getReset(TOKEN));
+
+    rateLimiter.updateSecondaryLimit(TOKEN, System.currentTimeMillis() / 1000 - 1);
+    // The later retry time is kept
+    assertFalse(rateLimiter.acquire(TOKEN, true));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void indexBudgetsByTokenHash() {
+    TokenRateLimiter rateLimiter = new TokenRateLimiter(10, 10);
+    rateLimiter.update(TOKEN, 100, System.currentTimeMillis() / 1000 + 3600);
+    Map<String, ?> budgets = (Map<String, ?>) ReflectionTestUtils.getField(rateLimiter, "budgets");
+    assertEquals(Set.of(Utils.sha256Hex(TOKEN)), budgets.keySet());
+  }
+
+  @Test
+  void resetBudget() {
+    TokenRateLimiter rateLimiter = new TokenRateLimiter(1, 10);
+    rateLimiter.update(TOKEN, 0, System.currentTimeMillis() / 1000 - 1);
+    assertNull(rateLimiter.getRemaining(TOKEN));
+    assertTrue(rateLimiter.acquire(TOKEN, true));
+  }
+}
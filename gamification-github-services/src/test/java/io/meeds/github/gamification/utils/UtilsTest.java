@@ -0,0 +1,95 @@
+/*
+ * This file is part of the Meeds project (https://meeds.io/).
+ *
+ * Copyright (C) 2020 - 2024 Meeds Lab contact@meedslab.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package io.meeds.github.gamification.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class UtilsTest {
+
+  private static final String SECRET  = "It's a Secret to Everybody";
+
+  private static final byte[] PAYLOAD = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void verifySha256Signature() {
+    // Sample from github webhooks documentation
+    String signature = "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17";
+    assertTrue(Utils.verifySignature(SECRET, PAYLOAD, signature));
+    // Reused Mac instance
+    assertTrue(Utils.verifySignature(SECRET, PAYLOAD, signature));
+    assertFalse(Utils.verifySignature("otherSecret", PAYLOAD, signature));
+    assertFalse(Utils.verifySignature(SECRET, "Hello, World".getBytes(StandardCharsets.UTF_8), signature));
+  }
+
+  @Test
+  void verifySignatureConcurrently() {
+    String signature = "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17";
+    // Pooled Mac instances are used by a single thread at a time
+    assertTrue(IntStream.range(0, 1000).parallel().allMatch(i -> Utils.verifySignature(SECRET, PAYLOAD, signature)));
+  }
+
+  @Test
+  void verifySha1Signature() {
+    String signature = "sha1=01dc10d0c83e72ed246219cdd91669667fe2ca59";
+    assertTrue(Utils.verifySignature(SECRET, PAYLOAD, signature));
+    assertTrue(Utils.verifySignature(SECRET, "Hello, World!", signature));
+  }
+
+  @Test
+  void verifyInvalidSignature() {
+    assertFalse(Utils.verifySignature(SECRET, PAYLOAD, null));
+    assertFalse(Utils.verifySignature(SECRET, PAYLOAD, "md5=01dc10d0c83e72ed246219cdd91669667fe2ca59"));
+    assertFalse(Utils.verifySignature(SECRET, PAYLOAD, "sha256=not-hex"));
+    assertFalse(Utils.verifySignature(null, PAYLOAD, "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void poolMacsWithoutSecretInClear() {
+    assertTrue(Utils.verifySignature(SECRET, PAYLOAD, "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"));
+    Map<String, ?> macPool = (Map<String, ?>) ReflectionTestUtils.getField(Utils.class, "MAC_POOL");
+    assertTrue(macPool.containsKey(Utils.HMAC_SHA256_ALGORITHM + ":" + Utils.sha256Hex(SECRET)));
+    assertTrue(macPool.keySet().stream().noneMatch(key -> key.contains(SECRET)));
+  }
+
+  @Test
+  void sha256Hex() {
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", Utils.sha256Hex("abc"));
+  }
+
+  @Test
+  void getEventDetailId() {
+    String eventDetails = Utils.buildEventDetails("132452", "221545");
+    assertEquals(132452L, Utils.getEventDetailId(eventDetails, Utils.ORGANIZATION_ID));
+    assertEquals(221545L, Utils.getEventDetailId(eventDetails, Utils.REPOSITORY_ID));
+    assertEquals(Utils.UNKNOWN_ID, Utils.getEventDetailId(Utils.buildEventDetails("132452", null), Utils.REPOSITORY_ID));
+    assertEquals(Utils.UNKNOWN_ID, Utils.getEventDetailId("{" + Utils.REPOSITORY_IDS + ": 1}", Utils.REPOSITORY_ID));
+    assertEquals(Utils.UNKNOWN_ID, Utils.getEventDetailId(null, Utils.ORGANIZATION_ID));
+  }
+}
@@ -140,6 +140,25 @@ export function saveRepositoryStatus(repositoryId, organizationId, enabled) {
   });
 }
 
+export function refreshTriggerStatus(trigger, organizationId) {
+  const formData = new FormData();
+  formData.append('trigger', trigger);
+  formData.append('organizationId', organizationId);
+
+  return fetch('/gamification-github/rest/hooks/trigger/status', {
+    method: 'POST',
+    credentials: 'include',
+    headers: {
+      'Content-Type': 'application/x-www-form-urlencoded',
+    },
+    body: new URLSearchParams(formData).toString(),
+  }).then(resp => {
+    if (!resp?.ok) {
+      throw new Error('Response code indicates a server error', resp);
+    }
+  });
+}
+
 export function forceUpdateWebhooks() {
   return fetch('/gamification-github/rest/hooks/forceUpdate', {
     method: 'PATCH',